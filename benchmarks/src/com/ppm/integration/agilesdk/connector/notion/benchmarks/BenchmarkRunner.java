@@ -0,0 +1,34 @@
+package com.ppm.integration.agilesdk.connector.notion.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the connector benchmarks with the GC profiler, so that the allocation rate per operation is reported next to the timings.
+ *
+ * Usage: BenchmarkRunner [result file] [benchmark regexp] [rows...]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 1 ? args[1] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+
+        if (args.length > 2) {
+            String[] rows = new String[args.length - 2];
+            System.arraycopy(args, 2, rows, 0, rows.length);
+            options.param("rows", rows);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
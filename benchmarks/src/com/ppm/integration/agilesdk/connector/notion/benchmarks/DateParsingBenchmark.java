@@ -0,0 +1,89 @@
+package com.ppm.integration.agilesdk.connector.notion.benchmarks;
+
+import com.ppm.integration.agilesdk.connector.notion.model.NotionDateParser;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of all the start and end dates of the rows of a database.
+ *
+ * {@link NotionDateParser} is measured both through its cache of parsed values, as used by the connector, and without it. The rows of the fixtures
+ * have fewer distinct dates than the cache holds, so the cached variant mostly measures cache hits, and the uncached one the parsing itself.
+ *
+ * The parsing done by the connector before {@link NotionDateParser} is measured as a baseline: java.time for date-times,
+ * and a SimpleDateFormat for plain dates. The connector shared a single SimpleDateFormat, which is not thread safe, so the benchmark uses one per thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DateParsingBenchmark {
+
+    private final static DateTimeFormatter longDateTimeFormatter = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            .optionalStart().appendOffset("+HH:MM", "+00:00").optionalEnd()
+            .optionalStart().appendOffset("+HHMM", "+0000").optionalEnd()
+            .optionalStart().appendOffset("+HH", "Z").optionalEnd()
+            .toFormatter();
+
+    private final static ThreadLocal<SimpleDateFormat> shortDateFormat = ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd"));
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private String[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> values = new ArrayList<>(rows * 2);
+        for (NotionPage page : NotionFixtures.readPages(NotionFixtures.queryResponses(rows))) {
+            NotionPage.PropertyValue dates = page.properties.get("Dates");
+            if (dates != null && dates.date != null) {
+                values.add(dates.date.start);
+                if (dates.date.end != null) {
+                    values.add(dates.date.end);
+                }
+            }
+        }
+        dates = values.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void notionDateParserCached(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(NotionDateParser.parse(date));
+        }
+    }
+
+    @Benchmark
+    public void notionDateParserUncached(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(NotionDateParser.parseUncached(date));
+        }
+    }
+
+    @Benchmark
+    public void legacyParser(Blackhole blackhole) throws ParseException {
+        SimpleDateFormat dateFormat = shortDateFormat.get();
+        for (String date : dates) {
+            if (date.contains("T")) {
+                blackhole.consume(Date.from(ZonedDateTime.parse(date, longDateTimeFormatter).toInstant()));
+            } else {
+                blackhole.consume(dateFormat.parse(date));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ppm.integration.agilesdk.connector.notion.benchmarks;
+
+import com.ppm.integration.agilesdk.connector.notion.json.NotionGson;
+import com.ppm.integration.agilesdk.connector.notion.json.PaginatedResponseReader;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import com.ppm.integration.agilesdk.connector.notion.model.PagesQueryResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading all the query responses of a database, as done by {@code NotionService} during a sync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DeserializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<byte[]> responses;
+
+    private PaginatedResponseReader<NotionPage, PagesQueryResponse> streamingReader;
+
+    private PaginatedResponseReader<NotionPage, PagesQueryResponse> projectedReader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        responses = NotionFixtures.queryResponses(rows);
+        streamingReader = new PaginatedResponseReader<>(PagesQueryResponse.class, NotionGson.getPageAdapter(null));
+        projectedReader = new PaginatedResponseReader<>(PagesQueryResponse.class, NotionGson.getPageAdapter(NotionFixtures.mappedPropertyIds()));
+    }
+
+    /** Whole response bound at once to {@link PagesQueryResponse}. */
+    @Benchmark
+    public void bindResponse(Blackhole blackhole) {
+        for (byte[] response : responses) {
+            PagesQueryResponse queryResponse = NotionGson.get().fromJson(
+                    new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8), PagesQueryResponse.class);
+            blackhole.consume(queryResponse.results);
+        }
+    }
+
+    /** Rows streamed one by one from the response, all properties read. */
+    @Benchmark
+    public void streamPages(Blackhole blackhole) throws IOException {
+        for (byte[] response : responses) {
+            blackhole.consume(streamingReader.read(new ByteArrayInputStream(response), blackhole::consume));
+        }
+    }
+
+    /** Rows streamed one by one from the response, only the mapped properties read. */
+    @Benchmark
+    public void streamProjectedPages(Blackhole blackhole) throws IOException {
+        for (byte[] response : responses) {
+            blackhole.consume(projectedReader.read(new ByteArrayInputStream(response), blackhole::consume));
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.ppm.integration.agilesdk.connector.notion.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+import com.hp.ppm.user.model.User;
+import com.ppm.integration.agilesdk.ValueSet;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.ppm.integration.agilesdk.connector.notion.json.NotionGson;
+import com.ppm.integration.agilesdk.connector.notion.json.PaginatedResponseReader;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import com.ppm.integration.agilesdk.connector.notion.model.PagesQueryResponse;
+import com.ppm.integration.agilesdk.provider.UserProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Synthetic responses of the Notion database query endpoint, used by the benchmarks.
+ *
+ * Rows are generated with a fixed seed, so every run parses exactly the same bytes. The property mix is the one of a typical
+ * work plan database: a title, people (unassigned, one or several assignees), a date range (dates with and without time and offset),
+ * a percent, a number for the effort, plus a select, some text and a parent relation that are not mapped to task fields.
+ *
+ * Like Notion, rows are split into responses of {@value #PAGE_SIZE} rows linked by cursors.
+ */
+public class NotionFixtures {
+
+    public static final int PAGE_SIZE = 100;
+
+    public static final String NAME_PROPERTY_ID = "title";
+    public static final String PEOPLE_PROPERTY_ID = "p%3Bq1";
+    public static final String DATES_PROPERTY_ID = "d%5Ea2";
+    public static final String PERCENT_PROPERTY_ID = "pc%3Ex";
+    public static final String EFFORT_PROPERTY_ID = "ef%7Bk";
+    public static final String STATUS_PROPERTY_ID = "st%3Fs";
+    public static final String NOTES_PROPERTY_ID = "nt%2Fr";
+    public static final String PARENT_PROPERTY_ID = "pr%40l";
+
+    private static final int TEAM_SIZE = 25;
+
+    private static final String[] STATUSES = {"Not started", "In progress", "Blocked", "Done"};
+
+    private static final long SEED = 20211016L;
+
+    private NotionFixtures() {
+    }
+
+    /**
+     * @return the bodies of the query responses returning the given number of rows, in pagination order.
+     */
+    public static List<byte[]> queryResponses(int rows) {
+        return queryResponses(rows, 0);
+    }
+
+    /**
+     * @param database index of the database, so that the rows of different databases have different ids and values.
+     * @return the bodies of the query responses of that database returning the given number of rows, in pagination order.
+     */
+    public static List<byte[]> queryResponses(int rows, int database) {
+        Random random = new Random(SEED + database);
+        List<byte[]> responses = new ArrayList<>(rows / PAGE_SIZE + 1);
+
+        for (int first = 0; first < rows; first += PAGE_SIZE) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(PAGE_SIZE * 2048);
+            writeQueryResponse(out, random, database, first, Math.min(rows, first + PAGE_SIZE), rows);
+            responses.add(out.toByteArray());
+        }
+
+        return responses;
+    }
+
+    /**
+     * @return all the rows of the responses, read like during a sync.
+     */
+    public static List<NotionPage> readPages(List<byte[]> responses) {
+        PaginatedResponseReader<NotionPage, PagesQueryResponse> reader =
+                new PaginatedResponseReader<>(PagesQueryResponse.class, NotionGson.getPageAdapter(null));
+        List<NotionPage> pages = new ArrayList<>(responses.size() * PAGE_SIZE);
+        try {
+            for (byte[] response : responses) {
+                reader.read(new ByteArrayInputStream(response), pages::add);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pages;
+    }
+
+    /**
+     * @return the work plan mapping of the fixture properties to task fields.
+     */
+    public static ValueSet workPlanConfig() {
+        ValueSet config = new ValueSet();
+        config.put(NotionConstants.KEY_TMF_TASK_NAME, NAME_PROPERTY_ID);
+        config.put(NotionConstants.KEY_TMF_TASK_START_DATE, DATES_PROPERTY_ID);
+        config.put(NotionConstants.KEY_TMF_TASK_FINISH_DATE, DATES_PROPERTY_ID + NotionConstants.END_DATE_SUFFIX);
+        config.put(NotionConstants.KEY_TMF_TASK_RESOURCES, PEOPLE_PROPERTY_ID);
+        config.put(NotionConstants.KEY_TMF_TASK_PERCENT_COMPLETE, PERCENT_PROPERTY_ID);
+        config.put(NotionConstants.KEY_TMF_TASK_ACTUAL_EFFORT, EFFORT_PROPERTY_ID);
+        return config;
+    }
+
+    /**
+     * @return the ids of the properties mapped in {@link #workPlanConfig()}.
+     */
+    public static Set<String> mappedPropertyIds() {
+        return new HashSet<>(Arrays.asList(NAME_PROPERTY_ID, PEOPLE_PROPERTY_ID, DATES_PROPERTY_ID, PERCENT_PROPERTY_ID, EFFORT_PROPERTY_ID));
+    }
+
+    /**
+     * @return a user provider knowing all the team members except the last one, as it's common to have Notion users missing in PPM.
+     */
+    public static UserProvider userProvider() {
+        return new UserProvider() {
+            @Override
+            public User getByEmail(String email) {
+                for (int i = 0; i < TEAM_SIZE - 1; i++) {
+                    if (email.equals(email(i))) {
+                        return user(i);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public User getByUsername(String username) {
+                return null;
+            }
+        };
+    }
+
+    private static User user(int member) {
+        User user = new User();
+        user.setUserId(Long.valueOf(30000 + member));
+        return user;
+    }
+
+    private static String email(int member) {
+        return "member" + member + "@example.com";
+    }
+
+    /**
+     * @return the JSON of the database whose rows are returned by {@link #queryResponses(int, int)}, as returned by Notion.
+     */
+    public static String databaseJson(int database, String title) {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject();
+            writer.name("object").value("database");
+            writer.name("id").value(databaseId(database));
+            writer.name("created_time").value("2021-08-16T09:00:00.000Z");
+            writer.name("last_edited_time").value("2021-10-16T09:00:00.000Z");
+            writer.name("title").beginArray();
+            writeRichText(writer, title);
+            writer.endArray();
+            writer.name("properties").beginObject();
+            writeSchemaProperty(writer, "Name", NAME_PROPERTY_ID, "title");
+            writeSchemaProperty(writer, "Assignee", PEOPLE_PROPERTY_ID, "people");
+            writeSchemaProperty(writer, "Dates", DATES_PROPERTY_ID, "date");
+            writeSchemaProperty(writer, "Notes", NOTES_PROPERTY_ID, "rich_text");
+            writeSchemaProperty(writer, "Parent", PARENT_PROPERTY_ID, "relation");
+
+            writer.name("Progress").beginObject().name("id").value(PERCENT_PROPERTY_ID).name("name").value("Progress").name("type").value("number");
+            writer.name("number").beginObject().name("format").value("percent").endObject();
+            writer.endObject();
+
+            writer.name("Effort").beginObject().name("id").value(EFFORT_PROPERTY_ID).name("name").value("Effort").name("type").value("number");
+            writer.name("number").beginObject().name("format").value("number").endObject();
+            writer.endObject();
+
+            writer.name("Status").beginObject().name("id").value(STATUS_PROPERTY_ID).name("name").value("Status").name("type").value("select");
+            writer.name("select").beginObject().name("options").beginArray();
+            for (int i = 0; i < STATUSES.length; i++) {
+                writer.beginObject().name("id").value("s" + i).name("name").value(STATUSES[i]).name("color").value("blue").endObject();
+            }
+            writer.endArray().endObject();
+            writer.endObject();
+
+            writer.endObject();
+            writer.name("url").value("https://www.notion.so/" + databaseId(database).replace("-", ""));
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    private static void writeSchemaProperty(JsonWriter writer, String name, String id, String type) throws IOException {
+        writer.name(name).beginObject().name("id").value(id).name("name").value(name).name("type").value(type);
+        writer.name(type).beginObject().endObject();
+        writer.endObject();
+    }
+
+    private static void writeQueryResponse(OutputStream out, Random random, int database, int first, int last, int rows) {
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("object").value("list");
+            writer.name("results").beginArray();
+            for (int row = first; row < last; row++) {
+                writePage(writer, random, database, row);
+            }
+            writer.endArray();
+            writer.name("next_cursor").value(last < rows ? rowId(database, last) : null);
+            writer.name("has_more").value(last < rows);
+            writer.name("type").value("page");
+            writer.name("page").beginObject().endObject();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writePage(JsonWriter writer, Random random, int database, int row) throws IOException {
+        writer.beginObject();
+        writer.name("object").value("page");
+        writer.name("id").value(rowId(database, row));
+        writer.name("created_time").value("2021-08-16T09:12:00.000Z");
+        writer.name("last_edited_time").value("2021-10-" + twoDigits(1 + random.nextInt(28)) + "T14:" + twoDigits(random.nextInt(60)) + ":00.000Z");
+        writer.name("created_by").beginObject().name("object").value("user").name("id").value(memberId(0)).endObject();
+        writer.name("last_edited_by").beginObject().name("object").value("user").name("id").value(memberId(random.nextInt(TEAM_SIZE))).endObject();
+        writer.name("cover").nullValue();
+        writer.name("icon").nullValue();
+        writer.name("parent").beginObject().name("type").value("database_id").name("database_id").value(databaseId(database)).endObject();
+        writer.name("archived").value(false);
+
+        writer.name("properties").beginObject();
+
+        writer.name("Status").beginObject().name("id").value(STATUS_PROPERTY_ID).name("type").value("select");
+        writer.name("select").beginObject()
+                .name("id").value("s" + row % STATUSES.length)
+                .name("name").value(STATUSES[row % STATUSES.length])
+                .name("color").value("blue")
+                .endObject();
+        writer.endObject();
+
+        writer.name("Assignee").beginObject().name("id").value(PEOPLE_PROPERTY_ID).name("type").value("people");
+        writer.name("people").beginArray();
+        int assignees = random.nextInt(10) < 2 ? 0 : random.nextInt(10) < 8 ? 1 : 2 + random.nextInt(2);
+        for (int i = 0; i < assignees; i++) {
+            int member = random.nextInt(TEAM_SIZE);
+            writer.beginObject()
+                    .name("object").value("user")
+                    .name("id").value(memberId(member))
+                    .name("name").value("Member " + member)
+                    .name("avatar_url").nullValue()
+                    .name("type").value("person")
+                    .name("person").beginObject().name("email").value(email(member)).endObject()
+                    .endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+
+        writer.name("Dates").beginObject().name("id").value(DATES_PROPERTY_ID).name("type").value("date");
+        if (random.nextInt(20) == 0) {
+            writer.name("date").nullValue();
+        } else {
+            int startDay = 1 + random.nextInt(300);
+            writer.name("date").beginObject();
+            writer.name("start").value(date(random, startDay));
+            writer.name("end").value(random.nextInt(4) == 0 ? null : date(random, startDay + 1 + random.nextInt(30)));
+            writer.name("time_zone").nullValue();
+            writer.endObject();
+        }
+        writer.endObject();
+
+        writer.name("Progress").beginObject().name("id").value(PERCENT_PROPERTY_ID).name("type").value("number");
+        if (random.nextInt(10) == 0) {
+            writer.name("number").nullValue();
+        } else {
+            writer.name("number").value(random.nextInt(11) / 10d);
+        }
+        writer.endObject();
+
+        writer.name("Effort").beginObject().name("id").value(EFFORT_PROPERTY_ID).name("type").value("number");
+        if (random.nextInt(5) == 0) {
+            writer.name("number").nullValue();
+        } else {
+            writer.name("number").value(random.nextInt(160) / 2d);
+        }
+        writer.endObject();
+
+        writer.name("Parent").beginObject().name("id").value(PARENT_PROPERTY_ID).name("type").value("relation");
+        writer.name("relation").beginArray();
+        if (row % 10 != 0) {
+            writer.beginObject().name("id").value(rowId(database, row - row % 10)).endObject();
+        }
+        writer.endArray();
+        writer.name("has_more").value(false);
+        writer.endObject();
+
+        writer.name("Notes").beginObject().name("id").value(NOTES_PROPERTY_ID).name("type").value("rich_text");
+        writer.name("rich_text").beginArray();
+        if (random.nextBoolean()) {
+            writeRichText(writer, "Follow-up on the review comments of row " + row + ", see the linked pages for details.");
+        }
+        writer.endArray();
+        writer.endObject();
+
+        writer.name("Name").beginObject().name("id").value(NAME_PROPERTY_ID).name("type").value("title");
+        writer.name("title").beginArray();
+        if (random.nextInt(50) != 0) {
+            writeRichText(writer, "Task " + row);
+        }
+        writer.endArray();
+        writer.endObject();
+
+        writer.endObject();
+
+        writer.name("url").value("https://www.notion.so/Task-" + rowId(database, row).replace("-", ""));
+        writer.endObject();
+    }
+
+    private static void writeRichText(JsonWriter writer, String text) throws IOException {
+        writer.beginObject()
+                .name("type").value("text")
+                .name("text").beginObject().name("content").value(text).name("link").nullValue().endObject()
+                .name("annotations").beginObject()
+                .name("bold").value(false).name("italic").value(false).name("strikethrough").value(false)
+                .name("underline").value(false).name("code").value(false).name("color").value("default")
+                .endObject()
+                .name("plain_text").value(text)
+                .name("href").nullValue()
+                .endObject();
+    }
+
+    /**
+     * Mostly plain dates, as in most work plans, with some date times in UTC or with an offset.
+     */
+    private static String date(Random random, int dayOfYear) {
+        int month = Math.min(12, 1 + (dayOfYear - 1) / 28);
+        String date = "2022-" + twoDigits(month) + "-" + twoDigits(1 + (dayOfYear - 1) % 28);
+        switch (random.nextInt(10)) {
+            case 0:
+                return date + "T" + twoDigits(8 + random.nextInt(10)) + ":00:00.000Z";
+            case 1:
+                return date + "T" + twoDigits(8 + random.nextInt(10)) + ":30:00.000+02:00";
+            default:
+                return date;
+        }
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+    public static String databaseId(int database) {
+        return new UUID(0x5c6a28216bb14a7eL, database).toString();
+    }
+
+    private static String rowId(int database, int row) {
+        return new UUID(0x6f1e2a3b4c5d4e6fL + database, row).toString();
+    }
+
+    private static String memberId(int member) {
+        return new UUID(0x2b7c9d0e1f2a4b3cL, member).toString();
+    }
+
+    /**
+     * Writes the fixtures to disk, to replay them with other tools.
+     *
+     * Usage: NotionFixtures &lt;output directory&gt; [rows...]
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "fixtures");
+        int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() : new int[] {1000, 10000, 100000};
+
+        for (int rows : sizes) {
+            File rowsDir = new File(dir, "query-" + rows);
+            if (!rowsDir.isDirectory() && !rowsDir.mkdirs()) {
+                throw new IOException("Cannot create directory " + rowsDir);
+            }
+            List<byte[]> responses = queryResponses(rows);
+            for (int i = 0; i < responses.size(); i++) {
+                try (OutputStream out = new FileOutputStream(new File(rowsDir, "page-" + i + ".json"))) {
+                    out.write(responses.get(i));
+                }
+            }
+            System.out.println(rows + " rows written to " + rowsDir);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ppm.integration.agilesdk.connector.notion.benchmarks;
+
+import com.ppm.integration.agilesdk.ValueSet;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import com.ppm.integration.agilesdk.connector.notion.model.PageExternalTask;
+import com.ppm.integration.agilesdk.connector.notion.model.PpmUserResolver;
+import com.ppm.integration.agilesdk.pm.ExternalTaskActuals;
+import com.ppm.integration.agilesdk.provider.UserProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of Notion rows to work plan tasks, and reading of the task actuals as PPM does when importing the work plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TaskMappingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<NotionPage> pages;
+
+    private ValueSet config;
+
+    private UserProvider userProvider;
+
+    private List<PageExternalTask> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pages = NotionFixtures.readPages(NotionFixtures.queryResponses(rows));
+        config = NotionFixtures.workPlanConfig();
+        userProvider = NotionFixtures.userProvider();
+        tasks = createTasks();
+    }
+
+    /** Tasks created with one user resolver for the whole sync, as in {@code NotionWorkPlanIntegration}. */
+    @Benchmark
+    public List<PageExternalTask> constructTasks() {
+        return createTasks();
+    }
+
+    /** All the values PPM reads from the actuals of each task. */
+    @Benchmark
+    public void readActuals(Blackhole blackhole) {
+        for (PageExternalTask task : tasks) {
+            for (ExternalTaskActuals actuals : task.getActuals()) {
+                blackhole.consume(actuals.getResourceId());
+                blackhole.consume(actuals.getActualEffort());
+                blackhole.consume(actuals.getPercentComplete());
+                blackhole.consume(actuals.getScheduledEffort());
+                blackhole.consume(actuals.getEstimatedRemainingEffort());
+                blackhole.consume(actuals.getActualStart());
+                blackhole.consume(actuals.getActualFinish());
+            }
+        }
+    }
+
+    private List<PageExternalTask> createTasks() {
+        PpmUserResolver userResolver = new PpmUserResolver(userProvider);
+        List<PageExternalTask> result = new ArrayList<>(pages.size());
+        for (NotionPage page : pages) {
+            result.add(new PageExternalTask(page, config, userResolver));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ppm.integration.agilesdk.connector.notion.standin;
+
+import java.util.Random;
+
+/**
+ * Latency and errors injected by the {@link NotionStandInServer} in its responses.
+ *
+ * Faults are drawn from a seeded random generator, so a sequential load test gets the same faults on each run.
+ * Rates are between 0 and 1; a request gets either a 429, a 5xx or a regular response, after the injected latency.
+ */
+public class FaultProfile {
+
+    private static final int[] SERVER_ERROR_STATUSES = {500, 502, 503, 504};
+
+    private long latencyMs = 0L;
+
+    private long latencyJitterMs = 0L;
+
+    private double throttleRate = 0d;
+
+    private String retryAfter = "1";
+
+    private double serverErrorRate = 0d;
+
+    private final Random random;
+
+    public FaultProfile(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return a profile configured with the "standin.*" system properties.
+     */
+    public static FaultProfile fromSystemProperties() {
+        return new FaultProfile(Long.getLong("standin.seed", 1L))
+                .latency(Long.getLong("standin.latencyMs", 0L), Long.getLong("standin.latencyJitterMs", 0L))
+                .throttle(Double.parseDouble(System.getProperty("standin.throttleRate", "0")), System.getProperty("standin.retryAfter", "1"))
+                .serverErrors(Double.parseDouble(System.getProperty("standin.serverErrorRate", "0")));
+    }
+
+    /**
+     * Each response is sent after latencyMs plus a random delay up to jitterMs.
+     */
+    public FaultProfile latency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = jitterMs;
+        return this;
+    }
+
+    /**
+     * @param retryAfter value of the Retry-After header of the 429 responses: a number of seconds, an HTTP date, or null to send none.
+     */
+    public FaultProfile throttle(double rate, String retryAfter) {
+        this.throttleRate = rate;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * Requests fail with HTTP 500, 502, 503 or 504 at the given rate.
+     */
+    public FaultProfile serverErrors(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    String getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the delay before sending the next response.
+     */
+    long nextLatencyMs() {
+        if (latencyJitterMs <= 0) {
+            return latencyMs;
+        }
+        synchronized (random) {
+            return latencyMs + (long)(random.nextDouble() * latencyJitterMs);
+        }
+    }
+
+    /**
+     * @return the injected error status of the next response, or 0 if it must be answered normally.
+     */
+    int nextErrorStatus() {
+        synchronized (random) {
+            double draw = random.nextDouble();
+            if (draw < throttleRate) {
+                return 429;
+            }
+            if (draw < throttleRate + serverErrorRate) {
+                return SERVER_ERROR_STATUSES[random.nextInt(SERVER_ERROR_STATUSES.length)];
+            }
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latencyMs + "ms (+" + latencyJitterMs + "ms), 429 rate " + throttleRate + " (Retry-After " + retryAfter + "), 5xx rate " + serverErrorRate;
+    }
+}
@@ -0,0 +1,378 @@
+package com.ppm.integration.agilesdk.connector.notion.standin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Notion API endpoints used by the connector, to load test syncs without reaching api.notion.com.
+ *
+ * Served endpoints:
+ * <ul>
+ *     <li>POST /v1/search: the databases of the dataset.</li>
+ *     <li>GET /v1/databases/{id}: a database of the dataset.</li>
+ *     <li>POST /v1/databases/{id}/query: the rows of a database, with filter_properties projection.</li>
+ * </ul>
+ * Pagination works as in Notion: page_size (100 at most) and start_cursor in the request, has_more and next_cursor in the response.
+ * Sorts and filters of queries are ignored, all the rows are returned in the dataset order.
+ *
+ * Requests without a bearer token get a 401. Latency, 429 (with Retry-After) and 5xx errors are injected according to the {@link FaultProfile}.
+ *
+ * To point the connector at the stand-in, set the {@value NotionConstants#SYSPROP_API_ROOT_URL} system property to {@link #getRootUrl()}.
+ */
+public class NotionStandInServer {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final String V1 = "/v1/";
+
+    private final StandInDataset dataset;
+
+    private final FaultProfile faults;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public NotionStandInServer(StandInDataset dataset, FaultProfile faults, int port) throws IOException {
+        this.dataset = dataset;
+        this.faults = faults;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Injected latency must not delay the other requests, so each request gets its own thread.
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "notion-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(V1, this::handle);
+    }
+
+    public NotionStandInServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the root URL to use instead of https://api.notion.com/.
+     */
+    public String getRootUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return the number of requests served per endpoint ("search", "database", "query") and per status ("status.429"...).
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, value) -> values.put(name, value.get()));
+        return values;
+    }
+
+    public void resetCounters() {
+        counters.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(V1.length());
+            String method = exchange.getRequestMethod();
+
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ") || authorization.length() <= "Bearer ".length()) {
+                sendError(exchange, 401, "unauthorized", "API token is invalid.");
+                return;
+            }
+
+            String endpoint;
+            String dbId = null;
+            if ("search".equals(path) && "POST".equals(method)) {
+                endpoint = "search";
+            } else if (path.startsWith("databases/")) {
+                String[] segments = path.substring("databases/".length()).split("/");
+                dbId = segments[0];
+                if (segments.length == 1 && "GET".equals(method)) {
+                    endpoint = "database";
+                } else if (segments.length == 2 && "query".equals(segments[1]) && "POST".equals(method)) {
+                    endpoint = "query";
+                } else {
+                    sendError(exchange, 400, "invalid_request_url", "Invalid request URL.");
+                    return;
+                }
+            } else {
+                sendError(exchange, 400, "invalid_request_url", "Invalid request URL.");
+                return;
+            }
+
+            increment(endpoint);
+
+            long latencyMs = faults.nextLatencyMs();
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+
+            int errorStatus = faults.nextErrorStatus();
+            if (errorStatus == 429) {
+                if (faults.getRetryAfter() != null) {
+                    exchange.getResponseHeaders().set("Retry-After", faults.getRetryAfter());
+                }
+                sendError(exchange, 429, "rate_limited", "You have been rate limited. Please try again in a few minutes.");
+                return;
+            } else if (errorStatus > 0) {
+                sendError(exchange, errorStatus, errorStatus == 503 ? "service_unavailable" : "internal_server_error", "Injected error.");
+                return;
+            }
+
+            JsonObject body = readBody(exchange);
+            switch (endpoint) {
+                case "search":
+                    search(exchange, body);
+                    break;
+                case "database":
+                    getDatabase(exchange, dbId);
+                    break;
+                default:
+                    query(exchange, dbId, body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            sendError(exchange, 400, "invalid_json", "Error parsing JSON body: " + e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "internal_server_error", String.valueOf(e));
+        }
+    }
+
+    private void search(HttpExchange exchange, JsonObject body) throws IOException {
+        List<JsonObject> results = new ArrayList<>();
+        String query = body.has("query") ? body.get("query").getAsString().toLowerCase() : "";
+        for (StandInDataset.StandInDatabase database : dataset.getDatabases()) {
+            if (query.isEmpty() || getTitle(database.getDatabase()).toLowerCase().contains(query)) {
+                results.add(database.getDatabase());
+            }
+        }
+
+        int start = 0;
+        String cursor = getString(body, "start_cursor");
+        if (cursor != null) {
+            start = -1;
+            for (int i = 0; i < results.size(); i++) {
+                if (cursor.equals(results.get(i).get("id").getAsString())) {
+                    start = i;
+                    break;
+                }
+            }
+            if (start < 0) {
+                sendError(exchange, 400, "validation_error", "start_cursor provided is invalid: " + cursor);
+                return;
+            }
+        }
+
+        sendPage(exchange, results, start, getPageSize(body), null);
+    }
+
+    private void getDatabase(HttpExchange exchange, String dbId) throws IOException {
+        StandInDataset.StandInDatabase database = dataset.getDatabase(dbId);
+        if (database == null) {
+            sendNotFound(exchange, dbId);
+            return;
+        }
+        send(exchange, 200, database.getDatabase().toString());
+    }
+
+    private void query(HttpExchange exchange, String dbId, JsonObject body) throws IOException {
+        StandInDataset.StandInDatabase database = dataset.getDatabase(dbId);
+        if (database == null) {
+            sendNotFound(exchange, dbId);
+            return;
+        }
+
+        int start = 0;
+        String cursor = getString(body, "start_cursor");
+        if (cursor != null) {
+            start = database.indexOfCursor(cursor);
+            if (start < 0) {
+                sendError(exchange, 400, "validation_error", "start_cursor provided is invalid: " + cursor);
+                return;
+            }
+        }
+
+        sendPage(exchange, database.getRows(), start, getPageSize(body), getFilterProperties(exchange));
+    }
+
+    private void sendPage(HttpExchange exchange, List<JsonObject> results, int start, int pageSize, Set<String> projectedPropertyIds) throws IOException {
+        int end = Math.min(results.size(), start + pageSize);
+
+        JsonArray page = new JsonArray();
+        for (int i = start; i < end; i++) {
+            page.add(projectedPropertyIds == null ? results.get(i) : project(results.get(i), projectedPropertyIds));
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("object", "list");
+        response.add("results", page);
+        response.addProperty("next_cursor", end < results.size() ? results.get(end).get("id").getAsString() : null);
+        response.addProperty("has_more", end < results.size());
+        send(exchange, 200, response.toString());
+    }
+
+    private static JsonObject project(JsonObject row, Set<String> projectedPropertyIds) {
+        JsonObject projected = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : row.entrySet()) {
+            projected.add(field.getKey(), field.getValue());
+        }
+        JsonObject properties = new JsonObject();
+        for (Map.Entry<String, JsonElement> property : row.getAsJsonObject("properties").entrySet()) {
+            if (projectedPropertyIds.contains(decode(property.getValue().getAsJsonObject().get("id").getAsString()))) {
+                properties.add(property.getKey(), property.getValue());
+            }
+        }
+        projected.add("properties", properties);
+        return projected;
+    }
+
+    /**
+     * @return the decoded ids of the filter_properties parameters, or null if there are none.
+     */
+    private static Set<String> getFilterProperties(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return null;
+        }
+        Set<String> propertyIds = null;
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.startsWith("filter_properties=")) {
+                if (propertyIds == null) {
+                    propertyIds = new HashSet<>();
+                }
+                // Like Notion, the parameter is decoded once and compared with the decoded property ids: ids are returned URL-encoded
+                // in the schema (e.g. "p%3Bq1") and must be sent as is, so an id decoded or encoded again by the client won't match.
+                propertyIds.add(decode(parameter.substring("filter_properties=".length())));
+            }
+        }
+        return propertyIds;
+    }
+
+    private static int getPageSize(JsonObject body) {
+        int pageSize = body.has("page_size") ? body.get("page_size").getAsInt() : MAX_PAGE_SIZE;
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize));
+    }
+
+    private static String getString(JsonObject body, String name) {
+        JsonElement value = body.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static String getTitle(JsonObject database) {
+        StringBuilder title = new StringBuilder();
+        JsonElement titleElement = database.get("title");
+        if (titleElement != null && titleElement.isJsonArray()) {
+            for (JsonElement text : titleElement.getAsJsonArray()) {
+                JsonElement plainText = text.getAsJsonObject().get("plain_text");
+                if (plainText != null && !plainText.isJsonNull()) {
+                    title.append(plainText.getAsString());
+                }
+            }
+        }
+        return title.toString();
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonElement body = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return body.isJsonObject() ? body.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private void sendNotFound(HttpExchange exchange, String dbId) throws IOException {
+        sendError(exchange, 404, "object_not_found", "Could not find database with ID: " + dbId + ".");
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("object", "error");
+        error.addProperty("status", status);
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        send(exchange, status, error.toString());
+    }
+
+    private void send(HttpExchange exchange, int status, String json) throws IOException {
+        increment("status." + status);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void increment(String counter) {
+        counters.computeIfAbsent(counter, c -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Runs the stand-in until the JVM is stopped.
+     *
+     * The dataset and faults are configured with system properties: standin.port (default 8089), standin.dataDir (directory of
+     * JSON files, see {@link StandInDataset#load(File)}), or else standin.databases and standin.rows for generated databases,
+     * and the faults described in {@link FaultProfile#fromSystemProperties()}.
+     */
+    public static void main(String[] args) throws Exception {
+        String dataDir = System.getProperty("standin.dataDir");
+        StandInDataset dataset = dataDir != null ? StandInDataset.load(new File(dataDir))
+                : StandInDataset.synthetic(Integer.getInteger("standin.databases", 3), Integer.getInteger("standin.rows", 10000));
+        FaultProfile faults = FaultProfile.fromSystemProperties();
+
+        NotionStandInServer server = new NotionStandInServer(dataset, faults, Integer.getInteger("standin.port", 8089)).start();
+
+        System.out.println("Notion stand-in serving " + dataset.getDatabases().size() + " databases at " + server.getRootUrl() + " with " + faults);
+        System.out.println("Start PPM with -D" + NotionConstants.SYSPROP_API_ROOT_URL + "=" + server.getRootUrl());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("Requests served: " + server.getCounters())));
+        Thread.sleep(TimeUnit.DAYS.toMillis(365));
+    }
+}
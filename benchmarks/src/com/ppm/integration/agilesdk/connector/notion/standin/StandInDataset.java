@@ -0,0 +1,143 @@
+package com.ppm.integration.agilesdk.connector.notion.standin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ppm.integration.agilesdk.connector.notion.benchmarks.NotionFixtures;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The databases and rows served by the {@link NotionStandInServer}.
+ *
+ * A dataset is either generated with {@link NotionFixtures}, or loaded from a directory holding, for each database,
+ * a "&lt;name&gt;.database.json" file with the database object and a "&lt;name&gt;.rows.json" file with the JSON array of its pages.
+ *
+ * Databases can be added while the server is running.
+ */
+public class StandInDataset {
+
+    private final Map<String, StandInDatabase> databases = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * @return a dataset of generated databases, each with the given number of rows.
+     */
+    public static StandInDataset synthetic(int databaseCount, int rowsPerDatabase) {
+        StandInDataset dataset = new StandInDataset();
+        for (int i = 0; i < databaseCount; i++) {
+            JsonObject database = JsonParser.parseString(NotionFixtures.databaseJson(i, "Work Plan " + (i + 1))).getAsJsonObject();
+            List<JsonObject> rows = new ArrayList<>(rowsPerDatabase);
+            for (byte[] response : NotionFixtures.queryResponses(rowsPerDatabase, i)) {
+                JsonObject queryResponse = JsonParser.parseString(new String(response, StandardCharsets.UTF_8)).getAsJsonObject();
+                queryResponse.getAsJsonArray("results").forEach(row -> rows.add(row.getAsJsonObject()));
+            }
+            dataset.addDatabase(database, rows);
+        }
+        return dataset;
+    }
+
+    /**
+     * @return the dataset of the "*.database.json" and "*.rows.json" files of the directory.
+     */
+    public static StandInDataset load(File dir) throws IOException {
+        File[] databaseFiles = dir.listFiles((d, name) -> name.endsWith(".database.json"));
+        if (databaseFiles == null) {
+            throw new IOException("Cannot read stand-in dataset directory " + dir);
+        }
+
+        StandInDataset dataset = new StandInDataset();
+        for (File databaseFile : databaseFiles) {
+            String baseName = databaseFile.getName().substring(0, databaseFile.getName().length() - ".database.json".length());
+            File rowsFile = new File(dir, baseName + ".rows.json");
+
+            List<JsonObject> rows = new ArrayList<>();
+            if (rowsFile.isFile()) {
+                JsonArray rowsArray = parse(rowsFile).getAsJsonArray();
+                rowsArray.forEach(row -> rows.add(row.getAsJsonObject()));
+            }
+            dataset.addDatabase(parse(databaseFile).getAsJsonObject(), rows);
+        }
+        return dataset;
+    }
+
+    private static JsonElement parse(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader);
+        }
+    }
+
+    /**
+     * Adds a database, replacing any database with the same id.
+     */
+    public void addDatabase(JsonObject database, List<JsonObject> rows) {
+        StandInDatabase standInDatabase = new StandInDatabase(database, rows);
+        databases.put(standInDatabase.getId(), standInDatabase);
+    }
+
+    public StandInDatabase getDatabase(String id) {
+        return databases.get(id);
+    }
+
+    public Collection<StandInDatabase> getDatabases() {
+        synchronized (databases) {
+            return new ArrayList<>(databases.values());
+        }
+    }
+
+    /**
+     * A database and its rows, in the order they're returned by queries.
+     */
+    public static class StandInDatabase {
+
+        private final String id;
+
+        private final JsonObject database;
+
+        private final List<JsonObject> rows;
+
+        /** Row index of each row id, as cursors are the id of the first row of the next page. */
+        private final Map<String, Integer> rowIndexes;
+
+        StandInDatabase(JsonObject database, List<JsonObject> rows) {
+            this.id = database.get("id").getAsString();
+            this.database = database;
+            this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+            this.rowIndexes = new HashMap<>(rows.size() * 2);
+            for (int i = 0; i < rows.size(); i++) {
+                rowIndexes.put(rows.get(i).get("id").getAsString(), i);
+            }
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public JsonObject getDatabase() {
+            return database;
+        }
+
+        public List<JsonObject> getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the index of the first row of the page starting at that cursor, or -1 if the cursor is unknown.
+         */
+        int indexOfCursor(String cursor) {
+            Integer index = rowIndexes.get(cursor);
+            return index == null ? -1 : index.intValue();
+        }
+    }
+}
@@ -12,7 +12,11 @@ public class NotionConstants {
     public static final String KEY_PROXY_PORT = "proxyPort";
 
     public static final String KEY_INTEGRATION_TOKEN = "integrationToken";
-    public static final String API_ROOT_URL = "https://api.notion.com/";
+    // JVM system property to call another Notion API root URL, e.g. a local stand-in for load tests.
+    public static final String SYSPROP_API_ROOT_URL = "notion.api.rootUrl";
+    public static final String DEFAULT_API_ROOT_URL = "https://api.notion.com/";
+
+    public static final String API_ROOT_URL = withTrailingSlash(System.getProperty(SYSPROP_API_ROOT_URL, DEFAULT_API_ROOT_URL));
 
     public static final String API_V1 = API_ROOT_URL + "v1/";
 
@@ -31,6 +35,90 @@ public class NotionConstants {
     public static final String KEY_TMF_TASK_ACTUAL_EFFORT = "tmfTaskActualEffort";
     public static final String END_DATE_SUFFIX = "#end";
     public static final String KEY_WP_SORT_BY = "sortBy";
+    public static final String KEY_WP_PARENT_RELATION = "parentRelation";
     public static final String KEY_FORCE_INTEGRATION_TOKEN_USE = "forceIntegrationTokenUse";
     public static final String KEY_USER_INTEGRATION_TOKEN = "userIntegrationToken";
+    public static final String KEY_WP_INCREMENTAL_SYNC = "incrementalSync";
+    public static final String KEY_WP_SKIP_EMPTY_NAME = "skipEmptyName";
+    public static final String KEY_WP_FILTER_PROPERTY = "filterProperty";
+    public static final String KEY_WP_FILTER_VALUE = "filterValue";
+    public static final String[] KEY_WP_ADDITIONAL_DATABASES = {"wpAdditionalDatabase1", "wpAdditionalDatabase2", "wpAdditionalDatabase3"};
+
+    // JVM system properties to tune the shared HTTP connections pool.
+    public static final String SYSPROP_HTTP_MAX_CONNECTIONS_PER_ROUTE = "notion.http.maxConnectionsPerRoute";
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final String SYSPROP_HTTP_MAX_CONNECTIONS_TOTAL = "notion.http.maxConnectionsTotal";
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_TOTAL = 50;
+    public static final String SYSPROP_HTTP_IDLE_TIMEOUT_SECONDS = "notion.http.idleTimeoutSeconds";
+    public static final int DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS = 60;
+    public static final String SYSPROP_HTTP_CONNECT_TIMEOUT_MS = "notion.http.connectTimeoutMs";
+    public static final int DEFAULT_HTTP_CONNECT_TIMEOUT_MS = 60000;
+    public static final String SYSPROP_HTTP_READ_TIMEOUT_MS = "notion.http.readTimeoutMs";
+    public static final int DEFAULT_HTTP_READ_TIMEOUT_MS = 60000;
+
+    // JVM system properties to tune the pacing of Notion API calls.
+    public static final String SYSPROP_API_REQUESTS_PER_SECOND = "notion.api.requestsPerSecond";
+    public static final double DEFAULT_API_REQUESTS_PER_SECOND = 3d;
+    public static final String SYSPROP_API_BURST = "notion.api.burst";
+    public static final double DEFAULT_API_BURST = 3d;
+    public static final String SYSPROP_API_MAX_THROTTLED_RETRIES = "notion.api.maxThrottledRetries";
+    public static final int DEFAULT_API_MAX_THROTTLED_RETRIES = 10;
+
+    // JVM system properties to tune the retry of transient Notion API failures.
+    public static final String SYSPROP_API_RETRY_MAX_ATTEMPTS = "notion.api.retry.maxAttempts";
+    public static final int DEFAULT_API_RETRY_MAX_ATTEMPTS = 5;
+    public static final String SYSPROP_API_RETRY_BASE_DELAY_MS = "notion.api.retry.baseDelayMs";
+    public static final long DEFAULT_API_RETRY_BASE_DELAY_MS = 500L;
+    public static final String SYSPROP_API_RETRY_MAX_DELAY_MS = "notion.api.retry.maxDelayMs";
+    public static final long DEFAULT_API_RETRY_MAX_DELAY_MS = 30000L;
+    public static final String SYSPROP_API_SYNC_RETRY_BUDGET = "notion.api.retry.syncBudget";
+    public static final int DEFAULT_API_SYNC_RETRY_BUDGET = 20;
+
+    // JVM system properties to tune the executor of asynchronous Notion API calls.
+    public static final String SYSPROP_ASYNC_VIRTUAL_THREADS = "notion.async.virtualThreads";
+    public static final String SYSPROP_ASYNC_THREADS = "notion.async.threads";
+    public static final int DEFAULT_ASYNC_THREADS = 8;
+    public static final String SYSPROP_ASYNC_QUEUE_SIZE = "notion.async.queueSize";
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 1000;
+    public static final String SYSPROP_PREFETCH_MAX_THREADS = "notion.prefetch.maxThreads";
+    public static final int DEFAULT_PREFETCH_MAX_THREADS = 16;
+
+    // JVM system properties to tune incremental syncs.
+    public static final String SYSPROP_SYNC_FULL_RESYNC_HOURS = "notion.sync.fullResyncHours";
+    public static final long DEFAULT_SYNC_FULL_RESYNC_HOURS = 24L;
+    public static final String SYSPROP_SNAPSHOT_MAX_DATABASES = "notion.snapshot.maxDatabases";
+    public static final int DEFAULT_SNAPSHOT_MAX_DATABASES = 20;
+    public static final String SYSPROP_SNAPSHOT_DIR = "notion.snapshot.dir";
+
+    // JVM system properties to tune the cache of databases schemas and listing, shared by all syncs and configuration screens.
+    public static final String SYSPROP_CACHE_MAX_ENTRIES = "notion.cache.maxEntries";
+    public static final int DEFAULT_CACHE_MAX_ENTRIES = 500;
+    public static final String SYSPROP_CACHE_SCHEMA_TTL_SECONDS = "notion.cache.schemaTtlSeconds";
+    public static final long DEFAULT_CACHE_SCHEMA_TTL_SECONDS = 300L;
+    public static final String SYSPROP_CACHE_SEARCH_TTL_SECONDS = "notion.cache.searchTtlSeconds";
+    public static final long DEFAULT_CACHE_SEARCH_TTL_SECONDS = 60L;
+    public static final String SYSPROP_CACHE_SCHEMA_REVALIDATION = "notion.cache.schemaRevalidation";
+    public static final String SYSPROP_CACHE_SCHEMA_MAX_AGE_SECONDS = "notion.cache.schemaMaxAgeSeconds";
+    public static final long DEFAULT_CACHE_SCHEMA_MAX_AGE_SECONDS = 3600L;
+
+    // JVM system properties to bound the Notion services kept for the integration tokens in use.
+    public static final String SYSPROP_SERVICES_MAX_ENTRIES = "notion.services.maxEntries";
+    public static final int DEFAULT_SERVICES_MAX_ENTRIES = 100;
+    public static final String SYSPROP_SERVICES_TTL_MINUTES = "notion.services.ttlMinutes";
+    public static final long DEFAULT_SERVICES_TTL_MINUTES = 60L;
+
+    // JVM system property to disable the JMX MBean exposing the connector metrics.
+    public static final String SYSPROP_METRICS_JMX = "notion.metrics.jmx";
+
+    // JVM system property to enable the export of the trace spans of each sync to the logs.
+    public static final String SYSPROP_TRACE_EXPORT = "notion.trace.export";
+
+    // JVM system properties of the in-memory log of the most recent Notion API calls.
+    public static final String SYSPROP_AUDIT_CAPACITY = "notion.audit.capacity";
+    public static final int DEFAULT_AUDIT_CAPACITY = 1024;
+    public static final String SYSPROP_AUDIT_LOG_REQUESTS = "notion.audit.logRequests";
+
+    private static String withTrailingSlash(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
 }
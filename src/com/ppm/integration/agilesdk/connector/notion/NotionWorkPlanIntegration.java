@@ -6,20 +6,31 @@
 package com.ppm.integration.agilesdk.connector.notion;
 
 import com.ppm.integration.agilesdk.ValueSet;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncTrace;
+import com.ppm.integration.agilesdk.connector.notion.metrics.TraceSpan;
+import com.ppm.integration.agilesdk.connector.notion.model.DatabaseExternalTask;
 import com.ppm.integration.agilesdk.connector.notion.model.NotionDatabase;
 import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
 import com.ppm.integration.agilesdk.connector.notion.model.PageExternalTask;
+import com.ppm.integration.agilesdk.connector.notion.model.PpmUserResolver;
+import com.ppm.integration.agilesdk.connector.notion.model.WorkPlanTreeBuilder;
+import com.ppm.integration.agilesdk.connector.notion.rest.NotionExecutors;
+import com.ppm.integration.agilesdk.connector.notion.service.NotionQueryFilters;
 import com.ppm.integration.agilesdk.connector.notion.service.NotionService;
 import com.ppm.integration.agilesdk.connector.notion.service.NotionServiceProvider;
 import com.ppm.integration.agilesdk.pm.*;
 import com.ppm.integration.agilesdk.provider.LocalizationProvider;
 import com.ppm.integration.agilesdk.provider.Providers;
-import com.ppm.integration.agilesdk.provider.UserProvider;
 import com.ppm.integration.agilesdk.ui.*;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class NotionWorkPlanIntegration extends WorkPlanIntegration {
@@ -27,18 +38,16 @@ public class NotionWorkPlanIntegration extends WorkPlanIntegration {
 
     private final Logger logger = Logger.getLogger(NotionWorkPlanIntegration.class);
 
+    /** Config keys of the Task fields that are mapped to a Notion property. */
+    private static final String[] TASK_FIELD_KEYS = {NotionConstants.KEY_TMF_TASK_NAME, NotionConstants.KEY_TMF_TASK_START_DATE, NotionConstants.KEY_TMF_TASK_FINISH_DATE,
+            NotionConstants.KEY_TMF_TASK_RESOURCES, NotionConstants.KEY_TMF_TASK_PERCENT_COMPLETE, NotionConstants.KEY_TMF_TASK_ACTUAL_EFFORT,
+            NotionConstants.KEY_WP_PARENT_RELATION};
+
     public NotionWorkPlanIntegration() {
     }
 
-    private NotionService service;
-
-    private synchronized NotionService getService(ValueSet config) {
-        if (service == null) {
-            service = NotionServiceProvider.get(config);
-        } else {
-            service.refreshRestConfigIfNeeded(config);
-        }
-        return service;
+    private NotionService getService(ValueSet config) {
+        return NotionServiceProvider.get(config);
     }
 
     @Override
@@ -58,21 +67,7 @@ public class NotionWorkPlanIntegration extends WorkPlanIntegration {
         // We only retrieve all databases and include the DB select field if the value of selected database is not already provided
         if (StringUtils.isBlank(values.get(NotionConstants.KEY_WP_DATABASE))) {
 
-            DynamicDropdown databasesList = new DynamicDropdown(NotionConstants.KEY_WP_DATABASE, "WP_DATABASE", true) {
-                @Override
-                public List<String> getDependencies() {
-                    return Arrays.asList(new String[]{NotionConstants.KEY_INTEGRATION_TOKEN, NotionConstants.KEY_USER_INTEGRATION_TOKEN});
-                }
-
-                @Override
-                public List<Option> getDynamicalOptions(ValueSet values) {
-                    final List<NotionDatabase> dbs = getService(values).getAllAvailableDatabases();
-                    Collections.sort(dbs, (o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
-                    List<Option> options = new ArrayList<>();
-                    dbs.stream().forEach(db -> options.add(new DynamicDropdown.Option(db.getId(), db.getName())));
-                    return options;
-                }
-            };
+            Field databasesList = createDatabaseField(NotionConstants.KEY_WP_DATABASE, "WP_DATABASE", true);
 
             fields.add(new LabelText("LABEL_DATABASE_TO_SYNC", "LABEL_DATABASE_TO_SYNC",
                     "Select what database to import:", true));
@@ -83,15 +78,61 @@ public class NotionWorkPlanIntegration extends WorkPlanIntegration {
             fields.add(new LineBreaker());
         }
 
+        fields.addAll(getAdditionalDatabasesSectionFields());
+
         // Fields mapping section
         fields.addAll(getTaskFieldMappingSectionFields());
 
         // Status mapping
         fields.addAll(getSortSectionFields());
 
+        fields.addAll(getHierarchySectionFields());
+
+        fields.addAll(getRowsFilterSectionFields());
+
+        fields.addAll(getSyncOptionsSectionFields());
+
         return fields;
     }
 
+    private Field createDatabaseField(String fieldKey, String labelKey, boolean isRequired) {
+        return new DynamicDropdown(fieldKey, labelKey, isRequired) {
+            @Override
+            public List<String> getDependencies() {
+                return Arrays.asList(new String[]{NotionConstants.KEY_INTEGRATION_TOKEN, NotionConstants.KEY_USER_INTEGRATION_TOKEN});
+            }
+
+            @Override
+            public List<Option> getDynamicalOptions(ValueSet values) {
+                final List<NotionDatabase> dbs = new ArrayList<>(getService(values).getAllAvailableDatabases());
+                Collections.sort(dbs, (o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
+                List<Option> options = new ArrayList<>();
+                dbs.stream().forEach(db -> options.add(new DynamicDropdown.Option(db.getId(), db.getName())));
+                return options;
+            }
+        };
+    }
+
+    /**
+     * @return the UI fields to pick other databases to sync in the same work plan.
+     * Properties of these databases are mapped by name to the properties picked in the main database.
+     */
+    private List<Field> getAdditionalDatabasesSectionFields() {
+
+        List<Field> dbFields = new ArrayList<>(NotionConstants.KEY_WP_ADDITIONAL_DATABASES.length + 2);
+
+        dbFields.add(new LabelText("LABEL_ADDITIONAL_DATABASES", "LABEL_ADDITIONAL_DATABASES",
+                "Other databases to sync in the same work plan:", false));
+
+        for (int i = 0; i < NotionConstants.KEY_WP_ADDITIONAL_DATABASES.length; i++) {
+            dbFields.add(createDatabaseField(NotionConstants.KEY_WP_ADDITIONAL_DATABASES[i], "LABEL_ADDITIONAL_DATABASE_" + (i + 1), false));
+        }
+
+        dbFields.add(new LineBreaker());
+
+        return dbFields;
+    }
+
     private List<Field> getUserIntegrationTokenFields(boolean isIntegrationTokenEmpty) {
         List<Field> userTokenFields = new ArrayList<>(3);
 
@@ -194,30 +235,252 @@ public class NotionWorkPlanIntegration extends WorkPlanIntegration {
     }
 
 
+    private List<Field> getHierarchySectionFields() {
+
+        List<Field> hierarchyFields = new ArrayList<>(3);
+
+        hierarchyFields.add(new LabelText("LABEL_HIERARCHY_TITLE", "LABEL_HIERARCHY_TITLE",
+                "Tasks Hierarchy", false));
+
+        hierarchyFields.add(createTaskField(NotionConstants.KEY_WP_PARENT_RELATION, "LABEL_PARENT_RELATION", false, "relation"));
+
+        hierarchyFields.add(new LineBreaker());
+
+        return hierarchyFields;
+    }
+
+    /**
+     * @return the UI fields to only import some rows of the database. The filter is applied by Notion, see {@link NotionQueryFilters}.
+     */
+    private List<Field> getRowsFilterSectionFields() {
+
+        List<Field> filterFields = new ArrayList<>(5);
+
+        filterFields.add(new LabelText("LABEL_ROWS_FILTER_TITLE", "LABEL_ROWS_FILTER_TITLE",
+                "Rows Filter", false));
+
+        filterFields.add(new CheckBox(NotionConstants.KEY_WP_SKIP_EMPTY_NAME, "LABEL_SKIP_EMPTY_NAME", false));
+
+        filterFields.add(createTaskField(NotionConstants.KEY_WP_FILTER_PROPERTY, "LABEL_FILTER_PROPERTY", false, "select", "status", "multi_select", "checkbox", "date", "created_time", "last_edited_time"));
+
+        filterFields.add(new PlainText(NotionConstants.KEY_WP_FILTER_VALUE, "LABEL_FILTER_VALUE", "", false));
+
+        filterFields.add(new LineBreaker());
+
+        return filterFields;
+    }
+
+    private List<Field> getSyncOptionsSectionFields() {
+
+        List<Field> syncFields = new ArrayList<>(3);
+
+        syncFields.add(new LabelText("LABEL_SYNC_OPTIONS_TITLE", "LABEL_SYNC_OPTIONS_TITLE",
+                "Sync Options", false));
+
+        syncFields.add(new CheckBox(NotionConstants.KEY_WP_INCREMENTAL_SYNC, "LABEL_INCREMENTAL_SYNC", false));
+
+        syncFields.add(new LineBreaker());
+
+        return syncFields;
+    }
+
+
     @Override
     /**
      * This method is in Charge of retrieving all Notion DB rows and turning them into a workplan structure to be imported in PPM.
      */
     public ExternalWorkPlan getExternalWorkPlan(WorkPlanIntegrationContext context, final ValueSet values) {
 
-        final String dbId = values.get(NotionConstants.KEY_WP_DATABASE);
+        final List<String> dbIds = getDatabaseIds(values);
+
+        final NotionService service = getService(values);
+        // One resolver for the whole sync, so each person assigned in Notion is only looked up once in PPM.
+        final PpmUserResolver userResolver = new PpmUserResolver(NotionServiceProvider.getUserProvider());
 
-        final String sortByFieldId = values.get(NotionConstants.KEY_WP_SORT_BY);
-        final List<NotionPage> rows = getService(values).getAllPages(dbId, sortByFieldId);
+        final List<ExternalTask> rootTasks = new ArrayList<>();
 
-        final UserProvider userProvider = NotionServiceProvider.getUserProvider();
+        final SyncMetrics syncMetrics = SyncMetrics.start();
+        syncMetrics.getTrace().tag("databases", dbIds.size());
+        try {
+            addRootTasks(rootTasks, service, dbIds, values, userResolver, syncMetrics);
+        } finally {
+            syncMetrics.getTrace().tag("rootTasks", rootTasks.size());
+            syncMetrics.end();
+            logger.info("Notion work plan sync of databases " + dbIds + ": " + syncMetrics);
+        }
 
         return new ExternalWorkPlan() {
 
             @Override
             public List<ExternalTask> getRootTasks() {
+                return rootTasks;
+            }
+        };
 
-                List<ExternalTask> rootTasks = rows.stream().map(page -> new PageExternalTask(page, values, userProvider)).collect(Collectors.toList());
+    }
 
-                return rootTasks;
+    private void addRootTasks(List<ExternalTask> rootTasks, NotionService service, List<String> dbIds, ValueSet values, PpmUserResolver userResolver, SyncMetrics syncMetrics) {
+        if (dbIds.size() == 1) {
+            rootTasks.addAll(getDatabaseTasks(service, dbIds.get(0), values, userResolver));
+        } else {
+            // Each database is retrieved in its own thread, so sync time is bounded by the slowest database rather than by the sum of all of them.
+            // All these requests still share the rate limit of the integration token.
+            final NotionDatabase mainDb = service.getNotionDatabase(dbIds.get(0));
+
+            List<CompletableFuture<ExternalTask>> dbTasks = dbIds.stream()
+                    .map(dbId -> service.getNotionDatabaseAsync(dbId).thenApplyAsync(syncMetrics.bind(db -> (ExternalTask)new DatabaseExternalTask(db,
+                            getDatabaseTasks(service, db.getId(), getConfigForDatabase(values, mainDb, db), userResolver))), NotionExecutors.requestExecutor()))
+                    .collect(Collectors.toList());
+
+            try {
+                dbTasks.forEach(dbTask -> rootTasks.add(dbTask.join()));
+            } catch (CompletionException e) {
+                // Databases not started yet are skipped, and the listings of the running ones stop before their next page.
+                syncMetrics.cancel();
+                dbTasks.forEach(dbTask -> dbTask.cancel(false));
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw e;
             }
+        }
+    }
+
+    private List<ExternalTask> getDatabaseTasks(NotionService service, String dbId, ValueSet config, PpmUserResolver userResolver) {
+
+        final String sortByFieldId = config.get(NotionConstants.KEY_WP_SORT_BY);
+
+        // Only the mapped properties of the rows matching the rows filter are retrieved from Notion.
+        final Set<String> mappedPropertyIds = getMappedPropertyIds(config);
+
+        final String rowsFilterJson = NotionQueryFilters.fromConfig(config, service.getNotionDatabase(dbId));
+
+        final List<PageExternalTask> tasks = new ArrayList<>();
+
+        // One span for the mapping of all the rows of the database; it overlaps the fetching of the rows, so the actual mapping time is tagged.
+        final TraceSpan mappingSpan = SyncTrace.startCurrentSpan(SyncMetrics.Phase.TASK_MAPPING.getLabel());
+        final long[] mappingNanos = {0L};
+
+        final Consumer<NotionPage> taskMapper = page -> {
+            long startNanos = System.nanoTime();
+            tasks.add(new PageExternalTask(page, config, userResolver));
+            long nanos = System.nanoTime() - startNanos;
+            mappingNanos[0] += nanos;
+            SyncMetrics.addToCurrent(SyncMetrics.Phase.TASK_MAPPING, nanos);
         };
 
+        try {
+            if ("true".equals(config.get(NotionConstants.KEY_WP_INCREMENTAL_SYNC))) {
+                // Only rows modified since last sync are retrieved from Notion.
+                service.getAllPagesIncremental(dbId, sortByFieldId, mappedPropertyIds, rowsFilterJson).forEach(taskMapper);
+            } else {
+                // Rows are turned into tasks as they're read from Notion, so we don't keep all the Notion pages in memory at once.
+                service.forEachPage(dbId, sortByFieldId, mappedPropertyIds, rowsFilterJson, taskMapper);
+            }
+        } finally {
+            if (mappingSpan != null) {
+                mappingSpan.tag("database", dbId).tag("rows", tasks.size()).tag("mappingMs", TimeUnit.NANOSECONDS.toMillis(mappingNanos[0])).end();
+            }
+        }
+
+        if (!StringUtils.isBlank(config.get(NotionConstants.KEY_WP_PARENT_RELATION))) {
+            return WorkPlanTreeBuilder.buildTree(tasks);
+        }
+
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * @return the ids of the Notion properties mapped to a Task field, or null if none is mapped (in which case all properties are retrieved).
+     */
+    private Set<String> getMappedPropertyIds(ValueSet config) {
+        Set<String> propertyIds = new LinkedHashSet<>();
+        for (String key : TASK_FIELD_KEYS) {
+            String fieldId = config.get(key);
+            if (StringUtils.isBlank(fieldId)) {
+                continue;
+            }
+            if (fieldId.endsWith(NotionConstants.END_DATE_SUFFIX)) {
+                fieldId = fieldId.substring(0, fieldId.length() - NotionConstants.END_DATE_SUFFIX.length());
+            }
+            propertyIds.add(fieldId);
+        }
+        return propertyIds.isEmpty() ? null : propertyIds;
+    }
+
+    /**
+     * @return the main database ID followed by the additional databases IDs, without duplicates.
+     */
+    private List<String> getDatabaseIds(ValueSet values) {
+        Set<String> dbIds = new LinkedHashSet<>();
+        dbIds.add(values.get(NotionConstants.KEY_WP_DATABASE));
+        for (String key : NotionConstants.KEY_WP_ADDITIONAL_DATABASES) {
+            String dbId = values.get(key);
+            if (!StringUtils.isBlank(dbId)) {
+                dbIds.add(dbId);
+            }
+        }
+        return new ArrayList<>(dbIds);
+    }
+
+    /**
+     * The properties mapping is defined with the property IDs of the main database.
+     * For another database, we use the properties with the same names; a property missing in that database is left unmapped.
+     */
+    private ValueSet getConfigForDatabase(ValueSet values, NotionDatabase mainDb, NotionDatabase db) {
+        if (db.getId().equals(mainDb.getId())) {
+            return values;
+        }
+
+        ValueSet dbConfig = new ValueSet();
+
+        dbConfig.put(NotionConstants.KEY_WP_DATABASE, db.getId());
+        dbConfig.put(NotionConstants.KEY_WP_INCREMENTAL_SYNC, values.get(NotionConstants.KEY_WP_INCREMENTAL_SYNC));
+        dbConfig.put(NotionConstants.KEY_WP_SKIP_EMPTY_NAME, values.get(NotionConstants.KEY_WP_SKIP_EMPTY_NAME));
+        dbConfig.put(NotionConstants.KEY_WP_FILTER_VALUE, values.get(NotionConstants.KEY_WP_FILTER_VALUE));
+
+        List<String> mappedKeys = new ArrayList<>(Arrays.asList(TASK_FIELD_KEYS));
+        mappedKeys.add(NotionConstants.KEY_WP_SORT_BY);
+        mappedKeys.add(NotionConstants.KEY_WP_FILTER_PROPERTY);
+
+        for (String key : mappedKeys) {
+            String fieldId = values.get(key);
+            if (StringUtils.isBlank(fieldId)) {
+                continue;
+            }
+
+            String suffix = "";
+            if (fieldId.endsWith(NotionConstants.END_DATE_SUFFIX)) {
+                suffix = NotionConstants.END_DATE_SUFFIX;
+                fieldId = fieldId.substring(0, fieldId.length() - suffix.length());
+            }
+
+            String dbFieldId = getSameNamePropertyId(mainDb, db, fieldId);
+            if (dbFieldId != null) {
+                dbConfig.put(key, dbFieldId + suffix);
+            }
+        }
+
+        return dbConfig;
+    }
+
+    private String getSameNamePropertyId(NotionDatabase mainDb, NotionDatabase db, String mainPropertyId) {
+        if (mainDb.properties == null || db.properties == null) {
+            return null;
+        }
+
+        for (NotionDatabase.Property mainProp : mainDb.properties.values()) {
+            if (mainPropertyId.equals(mainProp.id)) {
+                for (NotionDatabase.Property prop : db.properties.values()) {
+                    if (mainProp.name != null && mainProp.name.equals(prop.name)) {
+                        return prop.id;
+                    }
+                }
+                return null;
+            }
+        }
+
+        return null;
     }
 
     /**
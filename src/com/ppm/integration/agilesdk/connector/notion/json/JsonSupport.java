@@ -0,0 +1,154 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Helpers shared by the hand-written type adapters of the Notion model.
+ *
+ * Readers are lenient on unexpected shapes: a value that doesn't have the expected JSON type is skipped and left null,
+ * as Notion adds new property types and attributes over time.
+ */
+class JsonSupport {
+
+    @FunctionalInterface
+    interface ValueReader<E> {
+        E read(JsonReader reader) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ValueWriter<E> {
+        void write(JsonWriter writer, E value) throws IOException;
+    }
+
+    private JsonSupport() {
+    }
+
+    /**
+     * @return true if the next value has the expected type and can be read. If it's null or of another type, it is consumed and false is returned.
+     */
+    static boolean expect(JsonReader reader, JsonToken expectedToken) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == expectedToken) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static Double nextDoubleOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            return reader.nextDouble();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static <E> E[] readArray(JsonReader reader, IntFunction<E[]> arrayFactory, ValueReader<E> elementReader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_ARRAY)) {
+            return null;
+        }
+        List<E> elements = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            E element = elementReader.read(reader);
+            if (element != null) {
+                elements.add(element);
+            }
+        }
+        reader.endArray();
+        return elements.toArray(arrayFactory.apply(elements.size()));
+    }
+
+    static <E> void writeArray(JsonWriter writer, String name, E[] values, ValueWriter<E> elementWriter) throws IOException {
+        if (values == null) {
+            return;
+        }
+        writer.name(name).beginArray();
+        for (E value : values) {
+            elementWriter.write(writer, value);
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Reads the attributes common to all Notion objects.
+     * @return false if the attribute is not a common one and hasn't been read.
+     */
+    static boolean readNotionObjectField(JsonReader reader, String name, NotionObject object) throws IOException {
+        switch (name) {
+            case "object":
+                object.object = nextStringOrNull(reader);
+                return true;
+            case "id":
+                object.id = nextStringOrNull(reader);
+                return true;
+            case "created_time":
+                object.created_time = nextStringOrNull(reader);
+                return true;
+            case "last_edited_time":
+                object.last_edited_time = nextStringOrNull(reader);
+                return true;
+            case "title":
+                object.title = readArray(reader, NotionObject.Title[]::new, JsonSupport::readTitle);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static void writeNotionObjectFields(JsonWriter writer, NotionObject object) throws IOException {
+        writer.name("object").value(object.object);
+        writer.name("id").value(object.id);
+        writer.name("created_time").value(object.created_time);
+        writer.name("last_edited_time").value(object.last_edited_time);
+        writeArray(writer, "title", object.title, (w, title) -> {
+            w.beginObject();
+            w.name("type").value(title.type);
+            w.name("plain_text").value(title.plain_text);
+            w.endObject();
+        });
+    }
+
+    private static NotionObject.Title readTitle(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        NotionObject.Title title = new NotionObject.Title();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    title.type = nextStringOrNull(reader);
+                    break;
+                case "plain_text":
+                    title.plain_text = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return title;
+    }
+}
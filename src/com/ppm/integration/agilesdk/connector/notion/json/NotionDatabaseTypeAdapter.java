@@ -0,0 +1,213 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionDatabase;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.ppm.integration.agilesdk.connector.notion.json.JsonSupport.*;
+
+/**
+ * Reflection-free adapter for Notion databases (i.e. database schema).
+ */
+public class NotionDatabaseTypeAdapter extends TypeAdapter<NotionDatabase> {
+
+    @Override
+    public NotionDatabase read(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionDatabase db = new NotionDatabase();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (readNotionObjectField(reader, name, db)) {
+                continue;
+            }
+            if ("properties".equals(name)) {
+                db.properties = readProperties(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return db;
+    }
+
+    private static Map<String, NotionDatabase.Property> readProperties(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        Map<String, NotionDatabase.Property> properties = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String propertyName = reader.nextName();
+            NotionDatabase.Property property = readProperty(reader);
+            if (property != null) {
+                properties.put(propertyName, property);
+            }
+        }
+        reader.endObject();
+
+        return properties;
+    }
+
+    private static NotionDatabase.Property readProperty(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionDatabase.Property property = new NotionDatabase.Property();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    property.id = nextStringOrNull(reader);
+                    break;
+                case "name":
+                    property.name = nextStringOrNull(reader);
+                    break;
+                case "type":
+                    property.type = nextStringOrNull(reader);
+                    break;
+                case "select":
+                    property.select = readOptions(reader);
+                    break;
+                case "multi_select":
+                    property.multi_select = readOptions(reader);
+                    break;
+                case "number":
+                    property.number = readFormat(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return property;
+    }
+
+    private static NotionDatabase.Property.Format readFormat(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionDatabase.Property.Format format = new NotionDatabase.Property.Format();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("format".equals(reader.nextName())) {
+                format.format = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return format;
+    }
+
+    private static NotionDatabase.Property.Options readOptions(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionDatabase.Property.Options options = new NotionDatabase.Property.Options();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("options".equals(reader.nextName())) {
+                options.options = readArray(reader, NotionDatabase.Property.Options.Option[]::new, NotionDatabaseTypeAdapter::readOption);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return options;
+    }
+
+    private static NotionDatabase.Property.Options.Option readOption(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionDatabase.Property.Options.Option option = new NotionDatabase.Property.Options.Option();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    option.id = nextStringOrNull(reader);
+                    break;
+                case "name":
+                    option.name = nextStringOrNull(reader);
+                    break;
+                case "color":
+                    option.color = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return option;
+    }
+
+    @Override
+    public void write(JsonWriter writer, NotionDatabase db) throws IOException {
+        if (db == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writeNotionObjectFields(writer, db);
+        if (db.properties != null) {
+            writer.name("properties").beginObject();
+            for (Map.Entry<String, NotionDatabase.Property> entry : db.properties.entrySet()) {
+                NotionDatabase.Property property = entry.getValue();
+                writer.name(entry.getKey()).beginObject();
+                writer.name("id").value(property.id);
+                writer.name("name").value(property.name);
+                writer.name("type").value(property.type);
+                writeOptions(writer, "select", property.select);
+                writeOptions(writer, "multi_select", property.multi_select);
+                if (property.number != null) {
+                    writer.name("number").beginObject();
+                    writer.name("format").value(property.number.format);
+                    writer.endObject();
+                }
+                writer.endObject();
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+
+    private static void writeOptions(JsonWriter writer, String name, NotionDatabase.Property.Options options) throws IOException {
+        if (options == null) {
+            return;
+        }
+        writer.name(name).beginObject();
+        writeArray(writer, "options", options.options, (w, option) -> {
+            w.beginObject();
+            w.name("id").value(option.id);
+            w.name("name").value(option.name);
+            w.name("color").value(option.color);
+            w.endObject();
+        });
+        writer.endObject();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.ppm.integration.agilesdk.connector.notion.model.*;
+
+import java.util.Set;
+
+/**
+ * Holds the Gson instance used to (de)serialize Notion objects.
+ *
+ * Gson instances are thread safe, so a single one is shared by the whole connector. All the model classes have hand-written
+ * type adapters, so no reflection is involved when parsing Notion responses.
+ */
+public class NotionGson {
+
+    private static final PropertyValueTypeAdapter PROPERTY_VALUE_ADAPTER = new PropertyValueTypeAdapter();
+
+    private static final NotionPageTypeAdapter PAGE_ADAPTER = new NotionPageTypeAdapter(PROPERTY_VALUE_ADAPTER);
+
+    private static final NotionDatabaseTypeAdapter DATABASE_ADAPTER = new NotionDatabaseTypeAdapter();
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(NotionPage.PropertyValue.class, PROPERTY_VALUE_ADAPTER)
+            .registerTypeAdapter(NotionPage.class, PAGE_ADAPTER)
+            .registerTypeAdapter(NotionDatabase.class, DATABASE_ADAPTER)
+            .registerTypeAdapter(PagesQueryResponse.class, new PaginatedResponseTypeAdapter<NotionPage, PagesQueryResponse>(
+                    PagesQueryResponse::new, NotionPage[]::new, (response, results) -> response.results = results, PAGE_ADAPTER))
+            .registerTypeAdapter(DatabaseSearchResponse.class, new PaginatedResponseTypeAdapter<NotionDatabase, DatabaseSearchResponse>(
+                    DatabaseSearchResponse::new, NotionDatabase[]::new, (response, results) -> response.results = results, DATABASE_ADAPTER))
+            .create();
+
+    private NotionGson() {
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    /**
+     * @return an adapter reading only the page properties with the given ids, or the default page adapter if the ids are null.
+     */
+    public static TypeAdapter<NotionPage> getPageAdapter(Set<String> projectedPropertyIds) {
+        return projectedPropertyIds == null ? PAGE_ADAPTER : new NotionPageTypeAdapter(PROPERTY_VALUE_ADAPTER, projectedPropertyIds);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.ppm.integration.agilesdk.connector.notion.json.JsonSupport.*;
+
+/**
+ * Reflection-free adapter for Notion pages (i.e. database rows).
+ *
+ * With a projection, only the property values with one of the projected ids are read; all other property values are skipped in the stream.
+ */
+public class NotionPageTypeAdapter extends TypeAdapter<NotionPage> {
+
+    private final PropertyValueTypeAdapter propertyValueAdapter;
+
+    private final Set<String> projectedPropertyIds;
+
+    public NotionPageTypeAdapter(PropertyValueTypeAdapter propertyValueAdapter) {
+        this(propertyValueAdapter, null);
+    }
+
+    /**
+     * @param projectedPropertyIds ids of the properties to read, or null to read all of them.
+     */
+    public NotionPageTypeAdapter(PropertyValueTypeAdapter propertyValueAdapter, Set<String> projectedPropertyIds) {
+        this.propertyValueAdapter = propertyValueAdapter;
+        this.projectedPropertyIds = projectedPropertyIds;
+    }
+
+    @Override
+    public NotionPage read(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        NotionPage page = new NotionPage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (readNotionObjectField(reader, name, page)) {
+                continue;
+            }
+            if ("properties".equals(name)) {
+                page.properties = readProperties(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return page;
+    }
+
+    private Map<String, NotionPage.PropertyValue> readProperties(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        Map<String, NotionPage.PropertyValue> properties = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String propertyName = reader.nextName();
+            NotionPage.PropertyValue value = projectedPropertyIds == null ? propertyValueAdapter.read(reader)
+                    : propertyValueAdapter.readProjected(reader, projectedPropertyIds);
+            if (value != null) {
+                properties.put(propertyName, value);
+            }
+        }
+        reader.endObject();
+
+        return properties;
+    }
+
+    @Override
+    public void write(JsonWriter writer, NotionPage page) throws IOException {
+        if (page == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writeNotionObjectFields(writer, page);
+        if (page.properties != null) {
+            writer.name("properties").beginObject();
+            for (Map.Entry<String, NotionPage.PropertyValue> property : page.properties.entrySet()) {
+                writer.name(property.getKey());
+                propertyValueAdapter.write(writer, property.getValue());
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+}
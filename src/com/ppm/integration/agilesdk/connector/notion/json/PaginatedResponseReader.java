@@ -0,0 +1,91 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionObject;
+import com.ppm.integration.agilesdk.connector.notion.model.PaginatedResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads a Notion paginated response (search or database query) directly from the HTTP response stream.
+ *
+ * Each object of the "results" array is deserialized and handed over to a consumer as soon as it's read, so we never hold
+ * the whole response body as a String nor the full array of results of the page in memory.
+ */
+public class PaginatedResponseReader<T extends NotionObject, P extends PaginatedResponse> {
+
+    private final Class<P> responseType;
+
+    private final TypeAdapter<T> resultAdapter;
+
+    public PaginatedResponseReader(Gson gson, Class<P> responseType, Class<T> resultType) {
+        this(responseType, gson.getAdapter(resultType));
+    }
+
+    public PaginatedResponseReader(Class<P> responseType, TypeAdapter<T> resultAdapter) {
+        this.responseType = responseType;
+        this.resultAdapter = resultAdapter;
+    }
+
+    /**
+     * Reads one page of results and closes the stream.
+     *
+     * @return the paginated response with has_more and next_cursor values. Its results are not set, as they have all been passed to the consumer.
+     */
+    public P read(InputStream in, Consumer<T> resultConsumer) throws IOException {
+        P response = newResponse();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "results":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            T result = resultAdapter.read(reader);
+                            if (result != null) {
+                                resultConsumer.accept(result);
+                            }
+                        }
+                        reader.endArray();
+                        break;
+                    case "has_more":
+                        response.has_more = reader.nextBoolean();
+                        break;
+                    case "next_cursor":
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                            response.next_cursor = null;
+                        } else {
+                            response.next_cursor = reader.nextString();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        return response;
+    }
+
+    private P newResponse() {
+        try {
+            return responseType.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Paginated response type " + responseType.getName() + " must have a public no-arg constructor", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionObject;
+import com.ppm.integration.agilesdk.connector.notion.model.PaginatedResponse;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static com.ppm.integration.agilesdk.connector.notion.json.JsonSupport.*;
+
+/**
+ * Reflection-free adapter for a whole paginated response, when it's not read in streaming mode with {@link PaginatedResponseReader}.
+ */
+public class PaginatedResponseTypeAdapter<T extends NotionObject, P extends PaginatedResponse> extends TypeAdapter<P> {
+
+    private final Supplier<P> responseFactory;
+
+    private final IntFunction<T[]> resultsArrayFactory;
+
+    private final BiConsumer<P, T[]> resultsSetter;
+
+    private final TypeAdapter<T> resultAdapter;
+
+    public PaginatedResponseTypeAdapter(Supplier<P> responseFactory, IntFunction<T[]> resultsArrayFactory, BiConsumer<P, T[]> resultsSetter, TypeAdapter<T> resultAdapter) {
+        this.responseFactory = responseFactory;
+        this.resultsArrayFactory = resultsArrayFactory;
+        this.resultsSetter = resultsSetter;
+        this.resultAdapter = resultAdapter;
+    }
+
+    @Override
+    public P read(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        P response = responseFactory.get();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "results":
+                    resultsSetter.accept(response, readArray(reader, resultsArrayFactory, resultAdapter::read));
+                    break;
+                case "has_more":
+                    if (expect(reader, JsonToken.BOOLEAN)) {
+                        response.has_more = reader.nextBoolean();
+                    }
+                    break;
+                case "next_cursor":
+                    response.next_cursor = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return response;
+    }
+
+    @Override
+    public void write(JsonWriter writer, P response) throws IOException {
+        if (response == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("object").value("list");
+        T[] results = response.getResults();
+        writeArray(writer, "results", results, resultAdapter::write);
+        writer.name("next_cursor").value(response.next_cursor);
+        writer.name("has_more").value(response.has_more);
+        writer.endObject();
+    }
+}
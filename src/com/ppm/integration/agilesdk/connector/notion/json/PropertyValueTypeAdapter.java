@@ -0,0 +1,298 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage.PropertyValue;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static com.ppm.integration.agilesdk.connector.notion.json.JsonSupport.*;
+
+/**
+ * Reflection-free adapter for the property values of a Notion page. Only the attributes used by the connector are read, all others are skipped.
+ */
+public class PropertyValueTypeAdapter extends TypeAdapter<PropertyValue> {
+
+    @Override
+    public PropertyValue read(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        PropertyValue value = new PropertyValue();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            readField(reader, reader.nextName(), value);
+        }
+        reader.endObject();
+
+        return value;
+    }
+
+    /**
+     * Reads the property value only if its id is one of the projected ids; otherwise, its remaining attributes are skipped without being parsed.
+     * Notion sends the id first, so skipped values cost almost nothing.
+     *
+     * @return the property value, or null if it's not projected.
+     */
+    PropertyValue readProjected(JsonReader reader, Set<String> projectedIds) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+
+        PropertyValue value = new PropertyValue();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            readField(reader, reader.nextName(), value);
+            if (value.id != null && !projectedIds.contains(value.id)) {
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    reader.skipValue();
+                }
+                value = null;
+                break;
+            }
+        }
+        reader.endObject();
+
+        return value;
+    }
+
+    void readField(JsonReader reader, String name, PropertyValue value) throws IOException {
+        switch (name) {
+            case "id":
+                value.id = nextStringOrNull(reader);
+                break;
+            case "name":
+                value.name = nextStringOrNull(reader);
+                break;
+            case "type":
+                value.type = nextStringOrNull(reader);
+                break;
+            case "email":
+                value.email = nextStringOrNull(reader);
+                break;
+            case "multi_select":
+                value.multi_select = readArray(reader, PropertyValue.Option[]::new, PropertyValueTypeAdapter::readOption);
+                break;
+            case "select":
+                value.select = readOption(reader);
+                break;
+            case "number":
+                value.number = nextDoubleOrNull(reader);
+                break;
+            case "rich_text":
+                value.rich_text = readArray(reader, PropertyValue.RichText[]::new, PropertyValueTypeAdapter::readRichText);
+                break;
+            case "title":
+                value.title = readArray(reader, PropertyValue.RichText[]::new, PropertyValueTypeAdapter::readRichText);
+                break;
+            case "people":
+                value.people = readArray(reader, PropertyValue.People[]::new, PropertyValueTypeAdapter::readPeople);
+                break;
+            case "relation":
+                value.relation = readArray(reader, PropertyValue.Relation[]::new, PropertyValueTypeAdapter::readRelation);
+                break;
+            case "date":
+                value.date = readDateRange(reader);
+                break;
+            case "created_time":
+                value.created_time = nextStringOrNull(reader);
+                break;
+            case "last_edited_time":
+                value.last_edited_time = nextStringOrNull(reader);
+                break;
+            default:
+                reader.skipValue();
+        }
+    }
+
+    private static PropertyValue.Option readOption(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        PropertyValue.Option option = new PropertyValue.Option();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    option.id = nextStringOrNull(reader);
+                    break;
+                case "name":
+                    option.name = nextStringOrNull(reader);
+                    break;
+                case "color":
+                    option.color = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return option;
+    }
+
+    private static PropertyValue.RichText readRichText(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        PropertyValue.RichText richText = new PropertyValue.RichText();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    richText.type = nextStringOrNull(reader);
+                    break;
+                case "plain_text":
+                    richText.plain_text = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return richText;
+    }
+
+    private static PropertyValue.People readPeople(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        PropertyValue.People people = new PropertyValue.People();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    people.id = nextStringOrNull(reader);
+                    break;
+                case "name":
+                    people.name = nextStringOrNull(reader);
+                    break;
+                case "person":
+                    if (expect(reader, JsonToken.BEGIN_OBJECT)) {
+                        people.person = new PropertyValue.People.Person();
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("email".equals(reader.nextName())) {
+                                people.person.email = nextStringOrNull(reader);
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return people;
+    }
+
+    private static PropertyValue.Relation readRelation(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        PropertyValue.Relation relation = new PropertyValue.Relation();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("id".equals(reader.nextName())) {
+                relation.id = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return relation;
+    }
+
+    private static PropertyValue.DateRange readDateRange(JsonReader reader) throws IOException {
+        if (!expect(reader, JsonToken.BEGIN_OBJECT)) {
+            return null;
+        }
+        PropertyValue.DateRange dateRange = new PropertyValue.DateRange();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "start":
+                    dateRange.start = nextStringOrNull(reader);
+                    break;
+                case "end":
+                    dateRange.end = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return dateRange;
+    }
+
+    @Override
+    public void write(JsonWriter writer, PropertyValue value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("id").value(value.id);
+        writer.name("name").value(value.name);
+        writer.name("type").value(value.type);
+        writer.name("email").value(value.email);
+        writeArray(writer, "multi_select", value.multi_select, PropertyValueTypeAdapter::writeOption);
+        if (value.select != null) {
+            writer.name("select");
+            writeOption(writer, value.select);
+        }
+        writer.name("number").value(value.number);
+        writeArray(writer, "rich_text", value.rich_text, PropertyValueTypeAdapter::writeRichText);
+        writeArray(writer, "title", value.title, PropertyValueTypeAdapter::writeRichText);
+        writeArray(writer, "people", value.people, PropertyValueTypeAdapter::writePeople);
+        writeArray(writer, "relation", value.relation, (w, relation) -> w.beginObject().name("id").value(relation.id).endObject());
+        if (value.date != null) {
+            writer.name("date").beginObject();
+            writer.name("start").value(value.date.start);
+            writer.name("end").value(value.date.end);
+            writer.endObject();
+        }
+        writer.name("created_time").value(value.created_time);
+        writer.name("last_edited_time").value(value.last_edited_time);
+        writer.endObject();
+    }
+
+    private static void writeOption(JsonWriter writer, PropertyValue.Option option) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(option.id);
+        writer.name("name").value(option.name);
+        writer.name("color").value(option.color);
+        writer.endObject();
+    }
+
+    private static void writeRichText(JsonWriter writer, PropertyValue.RichText richText) throws IOException {
+        writer.beginObject();
+        writer.name("type").value(richText.type);
+        writer.name("plain_text").value(richText.plain_text);
+        writer.endObject();
+    }
+
+    private static void writePeople(JsonWriter writer, PropertyValue.People people) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(people.id);
+        writer.name("name").value(people.name);
+        if (people.person != null) {
+            writer.name("person").beginObject();
+            writer.name("email").value(people.person.email);
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations, recorded in microseconds.
+ *
+ * Buckets are log-linear: each power of two is split in 4 buckets, so percentiles are accurate within 25% from 1 microsecond
+ * to several days, with a fixed footprint of 2KB per histogram.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+
+    private static final int BUCKETS = SUB_BUCKETS * 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder totalMicros = new LongAdder();
+
+    private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0L);
+
+    public void record(long duration, TimeUnit unit) {
+        long micros = Math.max(0L, unit.toMicros(duration));
+        buckets.incrementAndGet(bucketOf(micros));
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        long max = maxMicros.get();
+        double meanMs = total == 0 ? 0d : totalMicros.sum() / 1000d / total;
+
+        return new LatencySnapshot(total, meanMs, percentileMs(counts, total, 0.5d, max), percentileMs(counts, total, 0.9d, max),
+                percentileMs(counts, total, 0.99d, max), max / 1000d);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+
+    private static double percentileMs(long[] counts, long total, double percentile, long maxMicros) {
+        if (total == 0) {
+            return 0d;
+        }
+        long rank = (long)Math.ceil(total * percentile);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(i), maxMicros) / 1000d;
+            }
+        }
+        return maxMicros / 1000d;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int)micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int)(micros >>> (exponent - 2)) - SUB_BUCKETS;
+        return SUB_BUCKETS * (exponent - 1) + subBucket;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long)(SUB_BUCKETS + subBucket + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Summary of a {@link LatencyHistogram}, exposed through JMX as a composite value. All durations are in milliseconds.
+ */
+public class LatencySnapshot {
+
+    private final long count;
+
+    private final double meanMs;
+
+    private final double p50Ms;
+
+    private final double p90Ms;
+
+    private final double p99Ms;
+
+    private final double maxMs;
+
+    @ConstructorProperties({"count", "meanMs", "p50Ms", "p90Ms", "p99Ms", "maxMs"})
+    public LatencySnapshot(long count, double meanMs, double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+        this.count = count;
+        this.meanMs = meanMs;
+        this.p50Ms = p50Ms;
+        this.p90Ms = p90Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMs() {
+        return meanMs;
+    }
+
+    public double getP50Ms() {
+        return p50Ms;
+    }
+
+    public double getP90Ms() {
+        return p90Ms;
+    }
+
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    public double getMaxMs() {
+        return maxMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", count, meanMs, p50Ms, p90Ms, p99Ms, maxMs);
+    }
+}
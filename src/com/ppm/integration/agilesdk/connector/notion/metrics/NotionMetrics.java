@@ -0,0 +1,320 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of the Notion API calls and of the work plan syncs, shared by the whole connector and exposed through JMX.
+ *
+ * Recording a value only updates lock-free counters, so it can be done on every request.
+ * The MBean is registered on first use, unless disabled with {@value NotionConstants#SYSPROP_METRICS_JMX}=false.
+ */
+public class NotionMetrics implements NotionMetricsMXBean {
+
+    private final static Logger logger = LogManager.getLogger(NotionMetrics.class);
+
+    public static final String OBJECT_NAME = "com.ppm.integration.agilesdk.connector.notion:type=NotionMetrics";
+
+    public static final String CACHE_DATABASE_SCHEMA = "databaseSchema";
+
+    public static final String CACHE_DATABASE_LIST = "databaseList";
+
+    private static final String SYNC_TOTAL = "total";
+
+    private static final int RECENT_REQUESTS = 100;
+
+    private static final NotionMetrics INSTANCE = new NotionMetrics();
+
+    static {
+        if (!"false".equalsIgnoreCase(System.getProperty(NotionConstants.SYSPROP_METRICS_JMX))) {
+            INSTANCE.register();
+        }
+    }
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram throttleWaits = new LatencyHistogram();
+
+    private final LongAdder throttledResponses = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LatencyHistogram> syncTimings = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Double> lastSyncMillis = Collections.emptyMap();
+
+    private static class EndpointMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    private NotionMetrics() {
+    }
+
+    public static NotionMetrics get() {
+        return INSTANCE;
+    }
+
+    private void register() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            // The connector classes may have been reloaded, in which case the previous MBean is replaced.
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            logger.error("Cannot register Notion connector metrics MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * @return the endpoint of a request, e.g. "POST /v1/databases/{id}/query" for a query URL of any database.
+     */
+    public static String endpointOf(String verb, String url) {
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int v1 = path.indexOf("/v1/");
+        if (v1 >= 0) {
+            path = path.substring(v1);
+        }
+
+        String[] segments = path.split("/");
+        StringBuilder endpoint = new StringBuilder(verb.length() + path.length()).append(verb).append(' ');
+        for (int i = 1; i < segments.length; i++) {
+            endpoint.append('/');
+            // Path is /v1/<object type>/<object id>/...
+            endpoint.append(i == 3 ? "{id}" : segments[i]);
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * @return the size in bytes of the string encoded in UTF-8, without encoding it.
+     */
+    public static long utf8Length(String s) {
+        if (s == null) {
+            return 0L;
+        }
+        long length = 0L;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Records one HTTP exchange with Notion.
+     *
+     * @param status the HTTP status, or 0 if no response was received.
+     */
+    public void recordRequest(String endpoint, int status, long latencyNanos, long requestBytes) {
+        EndpointMetrics metrics = endpoint(endpoint);
+        metrics.requests.increment();
+        metrics.requestBytes.add(requestBytes);
+        metrics.latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        increment(statusCounts, endpoint + " " + status);
+    }
+
+    public void recordResponseBytes(String endpoint, long bytes) {
+        endpoint(endpoint).responseBytes.add(bytes);
+    }
+
+    public void recordThrottleWait(long waitNanos) {
+        throttleWaits.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordThrottledResponse() {
+        throttledResponses.increment();
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordCacheHit(String cache) {
+        increment(cacheHits, cache);
+    }
+
+    public void recordCacheMiss(String cache) {
+        increment(cacheMisses, cache);
+    }
+
+    void recordSync(SyncMetrics sync, long durationNanos) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        millis.put(SYNC_TOTAL, durationNanos / 1000000d);
+        syncTimings.computeIfAbsent(SYNC_TOTAL, t -> new LatencyHistogram()).record(durationNanos, TimeUnit.NANOSECONDS);
+
+        for (SyncMetrics.Phase phase : SyncMetrics.Phase.values()) {
+            long phaseNanos = sync.getPhaseNanos(phase);
+            millis.put(phase.getLabel(), phaseNanos / 1000000d);
+            syncTimings.computeIfAbsent(phase.getLabel(), t -> new LatencyHistogram()).record(phaseNanos, TimeUnit.NANOSECONDS);
+        }
+
+        lastSyncMillis = Collections.unmodifiableMap(millis);
+    }
+
+    private EndpointMetrics endpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics : endpoints.computeIfAbsent(endpoint, e -> new EndpointMetrics());
+    }
+
+    private static void increment(ConcurrentMap<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return endpoints.values().stream().mapToLong(e -> e.requests.sum()).sum();
+    }
+
+    @Override
+    public Map<String, Long> getRequestCounts() {
+        return byEndpoint(e -> e.requests.sum());
+    }
+
+    @Override
+    public Map<String, Long> getStatusCounts() {
+        return sums(statusCounts);
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getLatencies() {
+        return byEndpoint(e -> e.latency.snapshot());
+    }
+
+    @Override
+    public Map<String, Long> getRequestBytes() {
+        return byEndpoint(e -> e.requestBytes.sum());
+    }
+
+    @Override
+    public Map<String, Long> getResponseBytes() {
+        return byEndpoint(e -> e.responseBytes.sum());
+    }
+
+    @Override
+    public LatencySnapshot getThrottleWaits() {
+        return throttleWaits.snapshot();
+    }
+
+    @Override
+    public long getThrottledResponseCount() {
+        return throttledResponses.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        return sums(cacheHits);
+    }
+
+    @Override
+    public Map<String, Long> getCacheMisses() {
+        return sums(cacheMisses);
+    }
+
+    @Override
+    public Map<String, Double> getCacheHitRatios() {
+        Map<String, Double> ratios = new TreeMap<>();
+        for (String cache : new String[] {CACHE_DATABASE_SCHEMA, CACHE_DATABASE_LIST}) {
+            long hits = sum(cacheHits, cache);
+            long total = hits + sum(cacheMisses, cache);
+            ratios.put(cache, total == 0 ? 0d : (double)hits / total);
+        }
+        return ratios;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getSyncTimings() {
+        Map<String, LatencySnapshot> timings = new TreeMap<>();
+        syncTimings.forEach((phase, histogram) -> timings.put(phase, histogram.snapshot()));
+        return timings;
+    }
+
+    @Override
+    public Map<String, Double> getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    @Override
+    public List<String> getRecentRequests() {
+        return RequestAuditLog.get().getRecent(RECENT_REQUESTS).stream().map(RequestAuditLog.RequestRecord::toString).collect(Collectors.toList());
+    }
+
+    @Override
+    public void reset() {
+        endpoints.clear();
+        statusCounts.clear();
+        throttleWaits.reset();
+        throttledResponses.reset();
+        retries.reset();
+        cacheHits.clear();
+        cacheMisses.clear();
+        syncTimings.clear();
+        lastSyncMillis = Collections.emptyMap();
+    }
+
+    private <T> Map<String, T> byEndpoint(Function<EndpointMetrics, T> value) {
+        Map<String, T> values = new TreeMap<>();
+        endpoints.forEach((endpoint, metrics) -> values.put(endpoint, value.apply(metrics)));
+        return values;
+    }
+
+    private static Map<String, Long> sums(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((key, counter) -> values.put(key, counter.sum()));
+        return values;
+    }
+
+    private static long sum(ConcurrentMap<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        return counter == null ? 0L : counter.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of the {@link NotionMetrics}, registered as {@value NotionMetrics#OBJECT_NAME}.
+ *
+ * Endpoints are named after the HTTP verb and the API path, with object ids replaced by {id}, e.g. "POST /v1/databases/{id}/query".
+ * All counters are cumulative since the server start or the last {@link #reset()}.
+ */
+public interface NotionMetricsMXBean {
+
+    long getRequestCount();
+
+    /** Number of requests sent, by endpoint. Retried requests are counted once per attempt. */
+    Map<String, Long> getRequestCounts();
+
+    /** Number of responses, by endpoint and HTTP status, e.g. "GET /v1/databases/{id} 200". Network errors have status 0. */
+    Map<String, Long> getStatusCounts();
+
+    /** Time between sending a request and receiving the response headers, by endpoint. */
+    Map<String, LatencySnapshot> getLatencies();
+
+    /** Size of the request bodies sent, by endpoint. */
+    Map<String, Long> getRequestBytes();
+
+    /** Size of the response bodies read by the connector, by endpoint. */
+    Map<String, Long> getResponseBytes();
+
+    /** Time requests waited for the rate limiter before being sent. */
+    LatencySnapshot getThrottleWaits();
+
+    /** Number of HTTP 429 responses received from Notion. */
+    long getThrottledResponseCount();
+
+    /** Number of requests sent again after a transient error. */
+    long getRetryCount();
+
+    /** Hits of the "databaseSchema" and "databaseList" caches. */
+    Map<String, Long> getCacheHits();
+
+    /** Misses of the "databaseSchema" and "databaseList" caches, i.e. values retrieved from Notion. */
+    Map<String, Long> getCacheMisses();
+
+    /** Ratio of hits of the "databaseSchema" and "databaseList" caches, between 0 and 1. */
+    Map<String, Double> getCacheHitRatios();
+
+    /** Duration of the work plan syncs ("total"), and time spent in each phase of a sync (fetch, parse, userResolution, taskMapping). */
+    Map<String, LatencySnapshot> getSyncTimings();
+
+    /** Duration ("total") and time spent in each phase of the last work plan sync, in milliseconds. */
+    Map<String, Double> getLastSyncMillis();
+
+    /** Most recent Notion API calls of this node, oldest first, from the {@link RequestAuditLog}. */
+    List<String> getRecentRequests();
+
+    void reset();
+}
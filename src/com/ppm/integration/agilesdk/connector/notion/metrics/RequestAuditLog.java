@@ -0,0 +1,233 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import com.kintana.core.logging.LogLevel;
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory log of the most recent Notion API calls of the PPM node, kept in a fixed size ring buffer.
+ *
+ * Recording a call only claims a slot with an atomic increment and stores an immutable record in it, so it never blocks nor logs in the calling thread.
+ * The records are:
+ * <ul>
+ *     <li>logged at STATUS level by a background thread every second, if enabled with {@value NotionConstants#SYSPROP_AUDIT_LOG_REQUESTS}=true;</li>
+ *     <li>dumped with the error when a call fails;</li>
+ *     <li>available through JMX, see {@link NotionMetricsMXBean#getRecentRequests()}.</li>
+ * </ul>
+ * When more calls are made than the buffer holds between two reads, the oldest records are lost.
+ */
+public class RequestAuditLog {
+
+    private final static Logger logger = LogManager.getLogger(RequestAuditLog.class);
+
+    private static final long DRAIN_INTERVAL_MS = 1000L;
+
+    private static final int MAX_CAPACITY = 1 << 20;
+
+    /** Max number of records dumped with an error. */
+    private static final int MAX_DUMPED_RECORDS = 20;
+
+    private static final RequestAuditLog INSTANCE = new RequestAuditLog(
+            Integer.getInteger(NotionConstants.SYSPROP_AUDIT_CAPACITY, NotionConstants.DEFAULT_AUDIT_CAPACITY));
+
+    static {
+        if ("true".equalsIgnoreCase(System.getProperty(NotionConstants.SYSPROP_AUDIT_LOG_REQUESTS))) {
+            INSTANCE.startDrainer();
+        }
+    }
+
+    private final AtomicReferenceArray<RequestRecord> slots;
+
+    private final int mask;
+
+    /** Sequence number of the next record. */
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    /** Sequence number of the next record to log. */
+    private final AtomicLong drainedSeq = new AtomicLong();
+
+    /** Sequence number of the next record to dump with an error, so that the same records are not dumped with every error. */
+    private final AtomicLong dumpedSeq = new AtomicLong();
+
+    /**
+     * One call to the Notion API. A call retried after an error or HTTP 429 has one record per attempt.
+     */
+    public static final class RequestRecord {
+        private final long seq;
+        private final long timestampMillis;
+        private final String verb;
+        private final String uri;
+        private final int status;
+        private final long latencyMicros;
+        private final String traceId;
+        private final String spanId;
+        private final long requestBytes;
+        private final long responseBytes;
+
+        private RequestRecord(long seq, String verb, String uri, int status, long latencyNanos, String traceId, String spanId, long requestBytes, long responseBytes) {
+            this.seq = seq;
+            this.timestampMillis = System.currentTimeMillis();
+            this.verb = verb;
+            this.uri = uri;
+            this.status = status;
+            this.latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+        }
+
+        public String getVerb() {
+            return verb;
+        }
+
+        /**
+         * @return the path of the request, without its query string.
+         */
+        public String getPath() {
+            int query = uri.indexOf('?');
+            return query >= 0 ? uri.substring(0, query) : uri;
+        }
+
+        /**
+         * @return the HTTP status, or 0 if no response was received.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        public long getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        /**
+         * @return the Content-Length of the response, or -1 if unknown.
+         */
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(timestampMillis) + " " + verb + " " + getPath() + " " + status + " " + (latencyMicros / 1000d) + "ms"
+                    + " sent=" + requestBytes + "B received=" + (responseBytes < 0 ? "?" : responseBytes + "B")
+                    + " traceId=" + traceId + " spanId=" + spanId;
+        }
+    }
+
+    RequestAuditLog(int capacity) {
+        // Capacity is rounded up to a power of two, so that the slot of a record is found with a mask.
+        int size = Integer.highestOneBit(Math.min(Math.max(2, capacity), MAX_CAPACITY) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public static RequestAuditLog get() {
+        return INSTANCE;
+    }
+
+    public void record(String verb, String uri, int status, long latencyNanos, String traceId, String spanId, long requestBytes, long responseBytes) {
+        long seq = nextSeq.getAndIncrement();
+        slots.set((int)(seq & mask), new RequestRecord(seq, verb, uri, status, latencyNanos, traceId, spanId, requestBytes, responseBytes));
+    }
+
+    /**
+     * @return the most recent records, oldest first.
+     */
+    public List<RequestRecord> getRecent(int max) {
+        long to = nextSeq.get();
+        return read(Math.max(0L, to - Math.min(max, slots.length())), to);
+    }
+
+    /**
+     * Logs the records not dumped yet (at most {@link #MAX_DUMPED_RECORDS}), to give the context of an error.
+     */
+    public void dumpOnError(String error) {
+        long to = nextSeq.get();
+        long from = Math.max(dumpedSeq.getAndSet(to), to - MAX_DUMPED_RECORDS);
+        List<RequestRecord> records = read(Math.max(0L, from), to);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        StringBuilder dump = new StringBuilder("Most recent Notion API calls of this node before error: ").append(error);
+        for (RequestRecord record : records) {
+            dump.append(System.lineSeparator()).append("  ").append(record);
+        }
+        logger.error(dump.toString());
+    }
+
+    /**
+     * Logs the records written since the last call.
+     */
+    void drain() {
+        long from = drainedSeq.get();
+        long to = nextSeq.get();
+        if (to - from > slots.length()) {
+            logger.log(LogLevel.STATUS, (to - from - slots.length()) + " Notion API calls were not logged, as they were overwritten in the audit log");
+            from = to - slots.length();
+        }
+
+        long seq = from;
+        for (; seq < to; seq++) {
+            RequestRecord record = slots.get((int)(seq & mask));
+            if (record == null || record.seq < seq) {
+                // Slot claimed but record not written yet, it will be logged next time.
+                break;
+            }
+            if (record.seq == seq) {
+                logger.log(LogLevel.STATUS, record.toString());
+            }
+        }
+        drainedSeq.set(seq);
+    }
+
+    private List<RequestRecord> read(long from, long to) {
+        List<RequestRecord> records = new ArrayList<>((int)(to - from));
+        for (long seq = from; seq < to; seq++) {
+            RequestRecord record = slots.get((int)(seq & mask));
+            // Skip records not written yet, or already overwritten by newer ones.
+            if (record != null && record.seq == seq) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private void startDrainer() {
+        ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notion-audit-log");
+            t.setDaemon(true);
+            return t;
+        });
+        drainer.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                logger.error("Error when logging Notion API calls", e);
+            }
+        }, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,199 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.ppm.integration.agilesdk.connector.notion.rest.RetryBudget;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Time spent in each phase of one work plan sync.
+ *
+ * The metrics of the sync running in the current thread are found with {@link #current()}, so that the REST and service layers
+ * can record their timings without having them passed around. Work done for the sync in other threads must be wrapped with one of the bind() methods.
+ *
+ * Rows are fetched in the background while previous rows are mapped, so phases overlap and their sum can exceed the sync duration.
+ *
+ * Each sync also has its {@link SyncTrace} and its {@link RetryBudget}, bound to the same threads.
+ */
+public class SyncMetrics {
+
+    public enum Phase {
+        /** Sending requests and waiting for the response headers, including rate limiting and retries. */
+        FETCH("fetch"),
+        /** Reading and deserializing response bodies, which includes receiving them from the network. */
+        PARSE("parse"),
+        /** Looking up in PPM the users assigned in Notion. */
+        USER_RESOLUTION("userResolution"),
+        /** Creating the tasks from the Notion rows, including user resolution. */
+        TASK_MAPPING("taskMapping");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final ThreadLocal<SyncMetrics> current = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+
+    private final SyncTrace trace = SyncTrace.start();
+
+    private volatile boolean cancelled = false;
+
+    private final RetryBudget retryBudget = new RetryBudget(Integer.getInteger(NotionConstants.SYSPROP_API_SYNC_RETRY_BUDGET, NotionConstants.DEFAULT_API_SYNC_RETRY_BUDGET));
+
+    private SyncMetrics() {
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+        }
+    }
+
+    /**
+     * Starts the metrics of a sync running in the current thread. {@link #end()} must be called when the sync is over.
+     */
+    public static SyncMetrics start() {
+        SyncMetrics metrics = new SyncMetrics();
+        current.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of the sync running in the current thread, or null if there's none.
+     */
+    public static SyncMetrics current() {
+        return current.get();
+    }
+
+    /**
+     * Adds time to a phase of the sync running in the current thread, if any.
+     */
+    public static void addToCurrent(Phase phase, long nanos) {
+        SyncMetrics metrics = current.get();
+        if (metrics != null) {
+            metrics.add(phase, nanos);
+        }
+    }
+
+    public void add(Phase phase, long nanos) {
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * @return the function, running with these metrics as the current sync metrics of the thread calling it.
+     */
+    public <A, R> Function<A, R> bind(Function<A, R> function) {
+        return a -> {
+            SyncMetrics previous = current.get();
+            current.set(this);
+            try {
+                return function.apply(a);
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the supplier, running with these metrics as the current sync metrics of the thread calling it.
+     */
+    public <T> Supplier<T> bind(Supplier<T> supplier) {
+        Function<Void, T> function = bind(v -> supplier.get());
+        return () -> function.apply(null);
+    }
+
+    /**
+     * @return the supplier bound to the sync running in the current thread, or the supplier itself if there's none.
+     * To be used for any work submitted to another thread on behalf of the current sync.
+     */
+    public static <T> Supplier<T> bindToCurrent(Supplier<T> supplier) {
+        SyncMetrics metrics = current.get();
+        return metrics == null ? supplier : metrics.bind(supplier);
+    }
+
+    /**
+     * @return the task, running with these metrics as the current sync metrics of the thread running it.
+     */
+    public Runnable bind(Runnable task) {
+        Function<Void, Void> function = bind(v -> {
+            task.run();
+            return null;
+        });
+        return () -> function.apply(null);
+    }
+
+    /**
+     * Ends the sync, records its timings in the {@link NotionMetrics} and exports its trace.
+     */
+    public void end() {
+        if (current.get() == this) {
+            current.remove();
+        }
+        NotionMetrics.get().recordSync(this, System.nanoTime() - startNanos);
+        trace.end();
+    }
+
+    public SyncTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Marks the sync as failed, so that its listings still running in other threads stop before requesting their next page.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the retry budget shared by all the requests of the sync.
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * @return the time spent in each phase, in milliseconds, by phase label.
+     */
+    public Map<String, Double> getPhaseMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            millis.put(phase.getLabel(), getPhaseNanos(phase) / 1000000d);
+        }
+        return millis;
+    }
+
+    long getPhaseNanos(Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("sync ").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).append("ms")
+                .append(" (trace ").append(trace.getTraceId()).append(')');
+        for (Phase phase : Phase.values()) {
+            sb.append(", ").append(phase.getLabel()).append(' ').append(TimeUnit.NANOSECONDS.toMillis(getPhaseNanos(phase))).append("ms");
+        }
+        return sb.toString();
+    }
+}
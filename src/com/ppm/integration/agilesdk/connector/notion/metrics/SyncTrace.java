@@ -0,0 +1,186 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trace of one work plan sync: all the Notion API calls of the sync share its trace id, which is sent in the B3 headers
+ * so that they can be correlated in DataPower and in the logs.
+ *
+ * The sync is the root span, and the fetch, parse, user resolution and task mapping operations are its child spans.
+ * If enabled with {@value NotionConstants#SYSPROP_TRACE_EXPORT}=true, the spans of a sync are exported when it ends as JSON records
+ * (Zipkin v2 format) to the logger of this class, one per line. They're logged by a background thread, not by the syncing thread;
+ * if syncs end faster than their spans can be logged, the spans of the latest syncs are dropped.
+ *
+ * The trace of the sync running in the current thread is the one of the {@link SyncMetrics#current()}.
+ */
+public class SyncTrace {
+
+    private final static Logger logger = LogManager.getLogger(SyncTrace.class);
+
+    public static final String ROOT_SPAN_NAME = "sync";
+
+    /** Max number of spans kept for one sync until it's exported, to bound memory on very large databases. */
+    private static final int MAX_SPANS = 10000;
+
+    private static final boolean EXPORT_SPANS = "true".equalsIgnoreCase(System.getProperty(NotionConstants.SYSPROP_TRACE_EXPORT));
+
+    /** Max number of ended syncs whose spans are waiting to be logged. */
+    private static final int MAX_PENDING_EXPORTS = 16;
+
+    private static final ExecutorService EXPORTER = EXPORT_SPANS ? createExporter() : null;
+
+    private final String traceId = newTraceId();
+
+    private final boolean recording;
+
+    private final TraceSpan rootSpan;
+
+    private final Queue<TraceSpan> spans = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger spanCount = new AtomicInteger();
+
+    private SyncTrace(boolean recording) {
+        this.recording = recording;
+        this.rootSpan = recording ? new TraceSpan(this, ROOT_SPAN_NAME, newSpanId(), null) : null;
+    }
+
+    /**
+     * Starts the trace of a sync. Called by {@link SyncMetrics#start()}.
+     */
+    static SyncTrace start() {
+        return new SyncTrace(true);
+    }
+
+    /**
+     * @return the trace of the sync running in the current thread, or null if there's none.
+     */
+    public static SyncTrace current() {
+        SyncMetrics metrics = SyncMetrics.current();
+        return metrics == null ? null : metrics.getTrace();
+    }
+
+    /**
+     * @return the trace of the sync running in the current thread, or a new trace whose spans are not recorded for calls made outside of a sync
+     * (e.g. when configuring the work plan integration).
+     */
+    public static SyncTrace currentOrDetached() {
+        SyncTrace trace = current();
+        return trace != null ? trace : new SyncTrace(false);
+    }
+
+    /**
+     * Starts a span of the sync running in the current thread, or returns null if there's none.
+     */
+    public static TraceSpan startCurrentSpan(String name) {
+        SyncTrace trace = current();
+        return trace == null ? null : trace.startSpan(name);
+    }
+
+    public TraceSpan startSpan(String name) {
+        return new TraceSpan(this, name, newSpanId(), rootSpan == null ? null : rootSpan.getSpanId());
+    }
+
+    /**
+     * Adds a tag to the root span of the sync.
+     */
+    public void tag(String key, Object value) {
+        if (rootSpan != null) {
+            rootSpan.tag(key, value);
+        }
+    }
+
+    void record(TraceSpan span) {
+        // Spans are only kept to be exported. Root span is added when the sync ends, even when other spans were dropped.
+        if (EXPORT_SPANS && recording && span != rootSpan && spanCount.incrementAndGet() <= MAX_SPANS) {
+            spans.add(span);
+        }
+    }
+
+    /**
+     * Ends the root span and exports all the spans of the sync. Called by {@link SyncMetrics#end()}.
+     */
+    void end() {
+        if (rootSpan == null) {
+            return;
+        }
+        int dropped = spanCount.get() - MAX_SPANS;
+        if (dropped > 0) {
+            rootSpan.tag("droppedSpans", dropped);
+        }
+        rootSpan.end();
+
+        if (EXPORTER != null) {
+            spans.add(rootSpan);
+            List<TraceSpan> endedSpans = getSpans();
+            EXPORTER.execute(() -> {
+                for (TraceSpan span : endedSpans) {
+                    logger.info(span.toJson().toString());
+                }
+            });
+        }
+    }
+
+    private static ExecutorService createExporter() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_EXPORTS), r -> {
+            Thread t = new Thread(r, "notion-trace-export");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return the id of the root span, or null if this trace is not the one of a sync.
+     */
+    public String getRootSpanId() {
+        return rootSpan == null ? null : rootSpan.getSpanId();
+    }
+
+    /**
+     * @return the spans ended so far, in the order they ended; always empty unless spans are exported.
+     */
+    public List<TraceSpan> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * @return a random 128 bits trace id, as 32 lower-case hex characters.
+     */
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return toHex(random.nextLong()) + toHex(random.nextLong());
+    }
+
+    /**
+     * @return a random non-zero 64 bits span id, as 16 lower-case hex characters.
+     */
+    static String newSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0L);
+        return toHex(id);
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+}
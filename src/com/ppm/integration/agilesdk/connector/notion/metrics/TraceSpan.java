@@ -0,0 +1,121 @@
+package com.ppm.integration.agilesdk.connector.notion.metrics;
+
+import com.google.gson.JsonObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed operation of a {@link SyncTrace}, such as one HTTP call or the parsing of one response.
+ *
+ * A span is started with {@link SyncTrace#startSpan(String)}, and is recorded in its trace once {@link #end()} is called.
+ */
+public class TraceSpan {
+
+    private final SyncTrace trace;
+
+    private final String name;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final long startEpochMicros;
+
+    private final long startNanos;
+
+    private final Map<String, Object> tags = new LinkedHashMap<>();
+
+    private volatile long durationMicros = -1L;
+
+    TraceSpan(SyncTrace trace, String name, String spanId, String parentSpanId) {
+        this.trace = trace;
+        this.name = name;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    public TraceSpan tag(String key, Object value) {
+        synchronized (tags) {
+            tags.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the span and records it in its trace. Only the first call has an effect.
+     */
+    public void end() {
+        if (durationMicros >= 0) {
+            return;
+        }
+        durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        trace.record(this);
+    }
+
+    public String getTraceId() {
+        return trace.getTraceId();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return the id of the root span of the sync, or null if this is the root span.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    /**
+     * @return the duration of the span, or -1 if it's not ended.
+     */
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, Object> getTags() {
+        synchronized (tags) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        }
+    }
+
+    /**
+     * @return the span as a structured record, with the same fields as a Zipkin v2 span.
+     */
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("traceId", getTraceId());
+        json.addProperty("id", spanId);
+        if (parentSpanId != null) {
+            json.addProperty("parentId", parentSpanId);
+        }
+        json.addProperty("name", name);
+        json.addProperty("timestamp", startEpochMicros);
+        json.addProperty("duration", durationMicros);
+
+        JsonObject jsonTags = new JsonObject();
+        getTags().forEach((key, value) -> jsonTags.addProperty(key, String.valueOf(value)));
+        json.add("tags", jsonTags);
+
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.ppm.integration.agilesdk.connector.notion.model;
+
+import com.ppm.integration.agilesdk.pm.ExternalTask;
+
+import java.util.List;
+
+/**
+ * Summary task grouping all the tasks imported from one Notion Database, used when a work plan is synced with several databases.
+ * Its dates, effort and progress are rolled up by PPM from its children.
+ */
+public class DatabaseExternalTask extends ExternalTask {
+
+    private NotionDatabase db;
+    private List<ExternalTask> children;
+
+    public DatabaseExternalTask(NotionDatabase db, List<ExternalTask> children) {
+        this.db = db;
+        this.children = children;
+    }
+
+    @Override
+    public String getId() {
+        return db.getId();
+    }
+
+    @Override
+    public String getName() {
+        return db.getName();
+    }
+
+    @Override
+    public List<ExternalTask> getChildren() {
+        return children;
+    }
+}
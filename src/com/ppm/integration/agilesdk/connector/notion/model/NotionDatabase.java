@@ -6,7 +6,7 @@ public class NotionDatabase extends NotionObject {
 
     public Map<String, Property> properties;
 
-    public class Property {
+    public static class Property {
         public String id;
         public String name;
         public String type;
@@ -14,14 +14,14 @@ public class NotionDatabase extends NotionObject {
         public Options select;
         public Format number;
 
-        public class Format {
+        public static class Format {
             public String format;
         }
 
-        public class Options {
-            Option[] options;
+        public static class Options {
+            public Option[] options;
 
-            public class Option {
+            public static class Option {
                 public String id;
                 public String name;
                 public String color;
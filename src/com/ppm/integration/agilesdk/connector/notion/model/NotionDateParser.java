@@ -0,0 +1,246 @@
+package com.ppm.integration.agilesdk.connector.notion.model;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import org.apache.commons.lang.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe parser of the dates returned by Notion.
+ *
+ * Notion sends either a date ("2021-08-16", interpreted as midnight in the PPM server time zone) or an ISO-8601 date time
+ * ("2021-08-16T14:30:00.000Z", "2021-08-16T14:30:00.000+02:00"). These are parsed straight from the string characters without creating
+ * any intermediate object; any other format is handed over to a regular java.time parser.
+ *
+ * Many rows share the same dates, so the parsed values (including failures) are cached.
+ */
+public class NotionDateParser {
+
+    private final static Logger logger = LogManager.getLogger(NotionDateParser.class);
+
+    private static final int MAX_CACHED_DATES = 10000;
+
+    private static final long INVALID_DATE = Long.MIN_VALUE;
+
+    private static final ConcurrentMap<String, Long> parsedDates = new ConcurrentHashMap<>();
+
+    private final static DateTimeFormatter longDateTimeFormatter = new DateTimeFormatterBuilder()
+            // date/time
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            // offset (hh:mm - "+00:00" when it's zero)
+            .optionalStart().appendOffset("+HH:MM", "+00:00").optionalEnd()
+            // offset (hhmm - "+0000" when it's zero)
+            .optionalStart().appendOffset("+HHMM", "+0000").optionalEnd()
+            // offset (hh - "Z" when it's zero)
+            .optionalStart().appendOffset("+HH", "Z").optionalEnd()
+            // create formatter
+            .toFormatter();
+
+    private NotionDateParser() {
+    }
+
+    /**
+     * @return the parsed date, or null if the string is blank or not a valid date.
+     */
+    public static Date parse(String dateStr) {
+        if (StringUtils.isBlank(dateStr)) {
+            return null;
+        }
+
+        Long epochMillis = parsedDates.get(dateStr);
+
+        if (epochMillis == null) {
+            epochMillis = toEpochMillis(dateStr);
+            if (parsedDates.size() >= MAX_CACHED_DATES) {
+                parsedDates.clear();
+            }
+            parsedDates.put(dateStr, epochMillis);
+        }
+
+        // Date is mutable, so each caller gets its own instance.
+        return epochMillis == INVALID_DATE ? null : new Date(epochMillis);
+    }
+
+    /**
+     * Same as {@link #parse(String)}, without reading nor filling the cache of parsed values. Only meant to measure the parsing itself.
+     */
+    public static Date parseUncached(String dateStr) {
+        if (StringUtils.isBlank(dateStr)) {
+            return null;
+        }
+
+        long epochMillis = toEpochMillis(dateStr);
+
+        return epochMillis == INVALID_DATE ? null : new Date(epochMillis);
+    }
+
+    private static long toEpochMillis(String dateStr) {
+        String s = dateStr.trim();
+        try {
+            long epochMillis = parseIsoFast(s);
+            if (epochMillis == INVALID_DATE) {
+                epochMillis = parseSlow(s);
+            }
+            return epochMillis;
+        } catch (RuntimeException e) {
+            // Failures are cached too, so this is only logged once per distinct value.
+            logger.error("Failed to parse Date string " + dateStr + " , ignoring date: " + e.getMessage());
+            return INVALID_DATE;
+        }
+    }
+
+    private static long parseSlow(String s) {
+        if (s.indexOf('T') >= 0) {
+            return ZonedDateTime.parse(s, longDateTimeFormatter).toInstant().toEpochMilli();
+        } else {
+            return LocalDate.parse(s).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * @return the epoch millis, or {@link #INVALID_DATE} if the string doesn't have one of the expected formats.
+     */
+    static long parseIsoFast(String s) {
+        int len = s.length();
+        if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return INVALID_DATE;
+        }
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return INVALID_DATE;
+        }
+
+        if (len == 10) {
+            // Date without time: midnight in the server time zone.
+            return LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        if (len < 16 || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            return INVALID_DATE;
+        }
+
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = 0;
+        int millis = 0;
+        int pos = 16;
+
+        if (pos < len && s.charAt(pos) == ':') {
+            if (pos + 3 > len) {
+                return INVALID_DATE;
+            }
+            second = digits(s, pos + 1, 2);
+            pos += 3;
+
+            if (pos < len && s.charAt(pos) == '.') {
+                pos++;
+                int fractionStart = pos;
+                while (pos < len && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+                    int digit = s.charAt(pos) - '0';
+                    int position = pos - fractionStart;
+                    if (position < 3) {
+                        millis += digit * (position == 0 ? 100 : position == 1 ? 10 : 1);
+                    }
+                    pos++;
+                }
+                if (pos == fractionStart || pos - fractionStart > 9) {
+                    return INVALID_DATE;
+                }
+            }
+        }
+
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID_DATE;
+        }
+
+        if (pos == len) {
+            // No offset: local date time in the server time zone.
+            return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1000000).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        int offsetSeconds;
+        char sign = s.charAt(pos);
+        if (sign == 'Z') {
+            offsetSeconds = 0;
+            pos++;
+        } else if (sign == '+' || sign == '-') {
+            int offsetHours = pos + 3 <= len ? digits(s, pos + 1, 2) : -1;
+            pos += 3;
+            int offsetMinutes = 0;
+            if (pos < len) {
+                if (s.charAt(pos) == ':') {
+                    pos++;
+                }
+                offsetMinutes = pos + 2 <= len ? digits(s, pos, 2) : -1;
+                pos += 2;
+            }
+            if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return INVALID_DATE;
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (sign == '-' ? -1 : 1);
+        } else {
+            return INVALID_DATE;
+        }
+
+        if (pos != len) {
+            return INVALID_DATE;
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offsetSeconds;
+
+        return epochSeconds * 1000L + millis;
+    }
+
+    /**
+     * @return the value of the decimal digits, or -1 if any character is not a digit.
+     */
+    private static int digits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a date of the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -12,7 +12,7 @@ public abstract class NotionObject {
 
     public Title[] title;
 
-    public class Title {
+    public static class Title {
         public String type;
         public String plain_text;
     }
@@ -1,18 +1,10 @@
 package com.ppm.integration.agilesdk.connector.notion.model;
 
-import com.hp.ppm.user.model.User;
 import com.kintana.core.logging.LogManager;
 import com.kintana.core.logging.Logger;
 import com.ppm.integration.agilesdk.provider.UserProvider;
 import org.apache.commons.lang.StringUtils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,24 +12,9 @@ public class NotionPage extends NotionObject {
 
     private final static Logger logger = LogManager.getLogger(NotionPage.class);
 
-    // yyyy-MM-dd date
-    private final static SimpleDateFormat shortDateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-    private final static DateTimeFormatter longDateTimeFormatter = new DateTimeFormatterBuilder()
-            // date/time
-            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-            // offset (hh:mm - "+00:00" when it's zero)
-            .optionalStart().appendOffset("+HH:MM", "+00:00").optionalEnd()
-            // offset (hhmm - "+0000" when it's zero)
-            .optionalStart().appendOffset("+HHMM", "+0000").optionalEnd()
-            // offset (hh - "Z" when it's zero)
-            .optionalStart().appendOffset("+HH", "Z").optionalEnd()
-            // create formatter
-            .toFormatter();
-
     public Map<String, PropertyValue> properties;
 
-    public class PropertyValue {
+    public static class PropertyValue {
         public String id;
         public String name;
         public String type;
@@ -48,37 +25,42 @@ public class NotionPage extends NotionObject {
         public RichText[] rich_text;
         public RichText[] title;
         public People[] people;
+        public Relation[] relation;
         public DateRange date;
         public String created_time;
         public String last_edited_time;
 
-        public class Format {
+        public static class Format {
             public String format;
         }
 
 
-        public class Option {
+        public static class Option {
             public String id;
             public String name;
             public String color;
         }
 
-        public class RichText {
+        public static class RichText {
             public String type;
             public String plain_text;
         }
 
-        public class DateRange {
+        public static class DateRange {
             public String start;
             public String end;
         }
 
-        public class People {
+        public static class Relation {
+            public String id;
+        }
+
+        public static class People {
             public String name;
             public String id;
             public Person person;
 
-            public class Person {
+            public static class Person {
                 public String email;
             }
 
@@ -127,6 +109,20 @@ public class NotionPage extends NotionObject {
             return parseDate(dateStr);
         }
 
+        /**
+         * @return the ID of the first page of a "relation" property, or null if there's none.
+         */
+        public String getFirstRelationId() {
+            if (relation != null) {
+                for (Relation r : relation) {
+                    if (r != null && r.id != null) {
+                        return r.id;
+                    }
+                }
+            }
+            return null;
+        }
+
         /** Only works if the field is of type "date".  Returns the end date. */
         public Date getEndDateValue() {
             String dateStr = null;
@@ -138,22 +134,7 @@ public class NotionPage extends NotionObject {
         }
 
         private Date parseDate(String dateStr) {
-            if (StringUtils.isBlank(dateStr)) {
-                return null;
-            }
-
-            try {
-                if (dateStr.contains("T")) {
-                    ZonedDateTime date = ZonedDateTime.parse(dateStr, longDateTimeFormatter);
-                    return Date.from(date.toInstant());
-                } else {
-                    // Format yyyy-MM-dd
-                    return shortDateFormat.parse(dateStr);
-                }
-            } catch (Exception e) {
-                logger.error("Failed to parse Date string " + dateStr + " , ignoring date.", e);
-                return null;
-            }
+            return NotionDateParser.parse(dateStr);
         }
 
         /**
@@ -162,6 +143,13 @@ public class NotionPage extends NotionObject {
          *
          */
         public List<Long> getPeoplesValue(UserProvider userProvider) {
+            return getPeoplesValue(new PpmUserResolver(userProvider));
+        }
+
+        /**
+         * @return The list of the PPM User IDs based on the content of the emails or people for that property, using the resolver's cached lookups.
+         */
+        public List<Long> getPeoplesValue(PpmUserResolver userResolver) {
             List<Long> ppmResourceIds = new ArrayList<>();
             if ("email".equals(type)) {
                 if (StringUtils.isBlank(email)) {
@@ -170,31 +158,18 @@ public class NotionPage extends NotionObject {
                 } else {
                     String[] emails = StringUtils.split(email, ";,");
                     for (String mailAddress: emails) {
-                        Long userId = getResourceIdFromEmailOrUsername(mailAddress, userProvider);
-                        if (userId == null) {
-                            logger.error("We couldn't find a PPM USer with email address "+mailAddress.trim());
-                        } else {
-                            if (!ppmResourceIds.contains(userId)) {
-                                ppmResourceIds.add(userId);
-                            }
+                        Long userId = userResolver.getResourceId(mailAddress);
+                        if (userId != null && !ppmResourceIds.contains(userId)) {
+                            ppmResourceIds.add(userId);
                         }
                     }
                 }
             } else if ("people".equals(type)) {
                 if (people != null) {
                     for (People p : people) {
-                        Long userId = getResourceIdFromEmailOrUsername(p.getEmail(), userProvider);
-
-                        if (userId == null) {
-                            userId = getResourceIdFromEmailOrUsername(p.name, userProvider);
-                        }
-
-                        if (userId == null) {
-                            logger.error("We couldn't find a PPM USer with email address or username "+p.getEmail() +" / "+p.name);
-                        } else {
-                            if (!ppmResourceIds.contains(userId)) {
-                                ppmResourceIds.add(userId);
-                            }
+                        Long userId = userResolver.getResourceId(p.getEmail(), p.name);
+                        if (userId != null && !ppmResourceIds.contains(userId)) {
+                            ppmResourceIds.add(userId);
                         }
                     }
                 }
@@ -203,23 +178,6 @@ public class NotionPage extends NotionObject {
             }
             return ppmResourceIds;
         }
-
-        private Long getResourceIdFromEmailOrUsername(String emailOrUsername, UserProvider userProvider) {
-            if (StringUtils.isBlank(emailOrUsername)) {
-                return null;
-            }
-            User user = userProvider.getByEmail(emailOrUsername.trim());
-
-            if (user == null) {
-                user = userProvider.getByUsername(emailOrUsername.trim());
-            }
-
-            if (user == null) {
-                return null;
-            } else {
-                return user.getUserId();
-            }
-        }
     }
 
 
@@ -11,39 +11,54 @@ import java.util.*;
 
 /**
  * Exposes a Notion Page object as an External Task, based on the passed config.
+ *
+ * All the task values are computed once when the task is created, as PPM calls the getters many times during work plan import.
+ * The Notion page itself is not kept, and the task is immutable once the work plan tree is built.
  */
 public class PageExternalTask extends ExternalTask {
 
-    private NotionPage page;
-    private UserProvider userProvider;
-    private ValueSet config;
-    private Map<String, NotionPage.PropertyValue> propertiesByFieldId = new HashMap<>();
-    private double percentComplete = 0.0d;
-    private double actualEffort = 0.0d;
-    private List<Long> resourcesIds = new ArrayList<>();
+    private final String id;
+    private final String name;
+    private final Date scheduledStart;
+    private final Date scheduledFinish;
+    private final TaskStatus status;
+    private final List<ExternalTaskActuals> actuals;
+    private final String parentId;
+    private final List<ExternalTask> children = new ArrayList<>();
 
     public PageExternalTask(NotionPage page, ValueSet config, UserProvider userProvider) {
-        this.page = page;
-        this.config = config;
-        this.userProvider = userProvider;
-        this.page.properties.values().stream().forEach(propValue -> propertiesByFieldId.put(propValue.id, propValue));
+        this(page, config, new PpmUserResolver(userProvider));
+    }
+
+    /**
+     * @param userResolver should be shared by all the tasks of a sync, so that each person is only looked up once in PPM.
+     */
+    public PageExternalTask(NotionPage page, ValueSet config, PpmUserResolver userResolver) {
+        Map<String, NotionPage.PropertyValue> propertiesByFieldId = new HashMap<>();
+        page.properties.values().stream().forEach(propValue -> propertiesByFieldId.put(propValue.id, propValue));
 
+        List<Long> resourcesIds = null;
         String resourceField = config.get(NotionConstants.KEY_TMF_TASK_RESOURCES);
         if (resourceField != null) {
-            resourcesIds = getPeoplesField(resourceField);
+            resourcesIds = getPeoplesField(propertiesByFieldId, resourceField, userResolver);
+        }
+        if (resourcesIds == null) {
+            resourcesIds = Collections.emptyList();
         }
 
+        double actualEffort = 0.0d;
         String actualEffortField = config.get(NotionConstants.KEY_TMF_TASK_ACTUAL_EFFORT);
         if (actualEffortField != null) {
-            Double effortValue = getNumberField(actualEffortField);
+            Double effortValue = getNumberField(propertiesByFieldId, actualEffortField);
             if (effortValue != null) {
                 actualEffort = effortValue.doubleValue();
             }
         }
 
+        double percentComplete = 0.0d;
         String percentCompleteField = config.get(NotionConstants.KEY_TMF_TASK_PERCENT_COMPLETE);
         if (percentCompleteField != null) {
-            Double percentValue = getNumberField(percentCompleteField);
+            Double percentValue = getNumberField(propertiesByFieldId, percentCompleteField);
             if (percentValue != null) {
                 percentComplete = percentValue * 100d; // PPM needs value between 0 and 100, while Notion stores percent in real value.
 
@@ -63,10 +78,66 @@ public class PageExternalTask extends ExternalTask {
         if (actualEffort <= 0d && percentComplete > 0d) {
             actualEffort = 1d;
         }
+
+        this.id = page.id;
+        this.name = computeName(propertiesByFieldId, config);
+        this.scheduledStart = computeScheduledStart(propertiesByFieldId, config);
+        this.scheduledFinish = computeScheduledFinish(propertiesByFieldId, config);
+        this.status = computeStatus(percentComplete);
+        this.actuals = computeActuals(resourcesIds, actualEffort, percentComplete);
+        this.parentId = getRelationField(propertiesByFieldId, config.get(NotionConstants.KEY_WP_PARENT_RELATION));
     }
 
     @Override
     public TaskStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Date getScheduledStart() {
+        return scheduledStart;
+    }
+
+    @Override
+    public Date getScheduledFinish() {
+        return scheduledFinish;
+    }
+
+    @Override
+    public List<ExternalTaskActuals> getActuals() {
+        return actuals;
+    }
+
+    @Override
+    public List<ExternalTask> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @return the ID of the parent page, as set in the parent relation property, or null if there's none.
+     */
+    public String getParentId() {
+        return parentId;
+    }
+
+    /**
+     * Children are only added while building the work plan tree, see {@link WorkPlanTreeBuilder}.
+     */
+    void addChild(ExternalTask child) {
+        children.add(child);
+    }
+
+    private static TaskStatus computeStatus(double percentComplete) {
         // We compute task Status based on the percent complete value.
         if (percentComplete <= 0d) {
             return TaskStatus.READY;
@@ -77,16 +148,10 @@ public class PageExternalTask extends ExternalTask {
         }
     }
 
-    @Override
-    public String getId() {
-        return page.id;
-    }
-
-    @Override
-    public String getName() {
+    private String computeName(Map<String, NotionPage.PropertyValue> propertiesByFieldId, ValueSet config) {
         String fieldId = config.get(NotionConstants.KEY_TMF_TASK_NAME);
         if (fieldId != null) {
-            String name = getTextField(fieldId);
+            String name = getTextField(propertiesByFieldId, fieldId);
             if (name == null) {
                 // It's common to have one empty line at the end of table in Notion Database
                 name = "?";
@@ -97,11 +162,10 @@ public class PageExternalTask extends ExternalTask {
         }
     }
 
-    @Override
-    public Date getScheduledStart() {
+    private Date computeScheduledStart(Map<String, NotionPage.PropertyValue> propertiesByFieldId, ValueSet config) {
         String fieldId = config.get(NotionConstants.KEY_TMF_TASK_START_DATE);
         if (fieldId != null) {
-            Date date = getDateField(fieldId);
+            Date date = getDateField(propertiesByFieldId, fieldId);
             if (date != null) {
                 return adjustStartDateTime(date);
             }
@@ -110,11 +174,10 @@ public class PageExternalTask extends ExternalTask {
 
     }
 
-    @Override
-    public Date getScheduledFinish() {
+    private Date computeScheduledFinish(Map<String, NotionPage.PropertyValue> propertiesByFieldId, ValueSet config) {
         String fieldId = config.get(NotionConstants.KEY_TMF_TASK_FINISH_DATE);
         if (fieldId != null) {
-            Date date = getDateField(fieldId);
+            Date date = getDateField(propertiesByFieldId, fieldId);
             if (date != null) {
                 return adjustFinishDateTime(date);
             }
@@ -122,30 +185,28 @@ public class PageExternalTask extends ExternalTask {
         return super.getScheduledFinish();
     }
 
-    @Override
-    public List<ExternalTaskActuals> getActuals() {
-
-        List<ExternalTaskActuals> actuals = new ArrayList<ExternalTaskActuals>();
+    private List<ExternalTaskActuals> computeActuals(List<Long> resourcesIds, double actualEffort, double percentComplete) {
 
+        List<ExternalTaskActuals> actuals = new ArrayList<ExternalTaskActuals>(Math.max(1, resourcesIds.size()));
 
         final double numResources = resourcesIds.size();
 
         if (resourcesIds.isEmpty()) {
             // All is unassigned effort
-            ExternalTaskActuals unassignedActuals = new NotionExternalTaskActuals(actualEffort, percentComplete, getScheduledStart(), getScheduledFinish(), null);
+            ExternalTaskActuals unassignedActuals = new NotionExternalTaskActuals(actualEffort, percentComplete, scheduledStart, scheduledFinish, null);
             actuals.add(unassignedActuals);
         } else {
             // One Actual entry per resource.
             for (final Long resourceId : resourcesIds) {
-                ExternalTaskActuals resourceActuals = new NotionExternalTaskActuals(actualEffort / numResources, percentComplete, getScheduledStart(), getScheduledFinish(), null);
+                ExternalTaskActuals resourceActuals = new NotionExternalTaskActuals(actualEffort / numResources, percentComplete, scheduledStart, scheduledFinish, resourceId);
                 actuals.add(resourceActuals);
             }
         }
 
-        return actuals;
+        return Collections.unmodifiableList(actuals);
     }
 
-    private String getTextField(String fieldId) {
+    private static String getTextField(Map<String, NotionPage.PropertyValue> propertiesByFieldId, String fieldId) {
         NotionPage.PropertyValue prop = propertiesByFieldId.get(fieldId);
 
         if (prop == null) {
@@ -155,7 +216,7 @@ public class PageExternalTask extends ExternalTask {
         return prop.getTextValue();
     }
 
-    private Date getDateField(String fieldId) {
+    private static Date getDateField(Map<String, NotionPage.PropertyValue> propertiesByFieldId, String fieldId) {
 
         boolean pickEndDate = false;
 
@@ -173,17 +234,31 @@ public class PageExternalTask extends ExternalTask {
         return pickEndDate ? prop.getEndDateValue() : prop.getDateValue();
     }
 
-    private List<Long> getPeoplesField(String fieldId) {
+    private static List<Long> getPeoplesField(Map<String, NotionPage.PropertyValue> propertiesByFieldId, String fieldId, PpmUserResolver userResolver) {
+        NotionPage.PropertyValue prop = propertiesByFieldId.get(fieldId);
+
+        if (prop == null) {
+            return null;
+        }
+
+        return prop.getPeoplesValue(userResolver);
+    }
+
+    private static String getRelationField(Map<String, NotionPage.PropertyValue> propertiesByFieldId, String fieldId) {
+        if (fieldId == null) {
+            return null;
+        }
+
         NotionPage.PropertyValue prop = propertiesByFieldId.get(fieldId);
 
         if (prop == null) {
             return null;
         }
 
-        return prop.getPeoplesValue(userProvider);
+        return prop.getFirstRelationId();
     }
 
-    private Double getNumberField(String fieldId) {
+    private static Double getNumberField(Map<String, NotionPage.PropertyValue> propertiesByFieldId, String fieldId) {
         NotionPage.PropertyValue prop = propertiesByFieldId.get(fieldId);
 
         if (prop == null) {
@@ -0,0 +1,109 @@
+package com.ppm.integration.agilesdk.connector.notion.model;
+
+import com.hp.ppm.user.model.User;
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncTrace;
+import com.ppm.integration.agilesdk.connector.notion.metrics.TraceSpan;
+import com.ppm.integration.agilesdk.provider.UserProvider;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the PPM users matching Notion people and email addresses, remembering the result of each lookup.
+ *
+ * The same few people are usually assigned to most rows of a database, so one resolver should be used for a whole sync:
+ * each distinct email or username is then looked up once in PPM, including the ones matching no PPM user.
+ *
+ * This class is thread safe.
+ */
+public class PpmUserResolver {
+
+    private final static Logger logger = LogManager.getLogger(PpmUserResolver.class);
+
+    /** Marks an email or username that matches no PPM user. */
+    private static final Long NO_USER = Long.valueOf(Long.MIN_VALUE);
+
+    private final UserProvider userProvider;
+
+    private final ConcurrentMap<String, Long> userIds = new ConcurrentHashMap<>();
+
+    /** Users not found, so that each of them is only logged once per sync and not for every row. */
+    private final Set<String> reportedMisses = ConcurrentHashMap.newKeySet();
+
+    public PpmUserResolver(UserProvider userProvider) {
+        this.userProvider = userProvider;
+    }
+
+    /**
+     * @return the ID of the PPM user with this email address, or else with this username; null if there's none.
+     */
+    public Long getResourceId(String emailOrUsername) {
+        Long userId = findUserId(emailOrUsername);
+
+        if (userId == null && StringUtils.isNotBlank(emailOrUsername) && reportedMisses.add(emailOrUsername.trim())) {
+            logger.error("We couldn't find a PPM User with email address or username " + emailOrUsername.trim());
+        }
+
+        return userId;
+    }
+
+    /**
+     * @return the ID of the PPM user matching the email address of a Notion person, or else matching their name; null if there's none.
+     */
+    public Long getResourceId(String email, String name) {
+        Long userId = findUserId(email);
+
+        if (userId == null) {
+            userId = findUserId(name);
+        }
+
+        if (userId == null && reportedMisses.add(StringUtils.trimToEmpty(email) + " / " + StringUtils.trimToEmpty(name))) {
+            logger.error("We couldn't find a PPM User with email address or username " + email + " / " + name);
+        }
+
+        return userId;
+    }
+
+    private Long findUserId(String emailOrUsername) {
+        if (StringUtils.isBlank(emailOrUsername)) {
+            return null;
+        }
+
+        String key = emailOrUsername.trim();
+        Long userId = userIds.get(key);
+
+        if (userId == null) {
+            // Not looked up within computeIfAbsent, so that other lookups don't wait for the PPM DB.
+            // Two threads may look up the same user at the same time, they find the same result.
+            userId = lookupUserId(key);
+            Long previous = userIds.putIfAbsent(key, userId);
+            if (previous != null) {
+                userId = previous;
+            }
+        }
+
+        return NO_USER.equals(userId) ? null : userId;
+    }
+
+    private Long lookupUserId(String emailOrUsername) {
+        long startNanos = System.nanoTime();
+        TraceSpan span = SyncTrace.startCurrentSpan(SyncMetrics.Phase.USER_RESOLUTION.getLabel());
+        User user = userProvider.getByEmail(emailOrUsername);
+
+        if (user == null) {
+            user = userProvider.getByUsername(emailOrUsername);
+        }
+        SyncMetrics.addToCurrent(SyncMetrics.Phase.USER_RESOLUTION, System.nanoTime() - startNanos);
+        if (span != null) {
+            // The email address is not traced, as spans may be exported outside of PPM.
+            span.tag("found", user != null).end();
+        }
+
+        return user == null ? NO_USER : user.getUserId();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ppm.integration.agilesdk.connector.notion.model;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.pm.ExternalTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the work plan tree of tasks linked to their parent with a relation property (e.g. the "Parent item" of Notion sub-items).
+ *
+ * The tree is built in linear time: tasks are indexed by ID once, every task is visited once to detect cycles, and children keep the order of the rows.
+ * <ul>
+ *     <li>A task whose parent is not part of the synced rows (deleted, filtered out or in another database) becomes a root task.</li>
+ *     <li>A cycle of parent links is broken by turning the first task of the cycle that is reached into a root task.</li>
+ * </ul>
+ */
+public class WorkPlanTreeBuilder {
+
+    private final static Logger logger = LogManager.getLogger(WorkPlanTreeBuilder.class);
+
+    private static final int NO_PARENT = -1;
+
+    private static final byte NOT_VISITED = 0;
+    private static final byte VISITING = 1;
+    private static final byte VISITED = 2;
+
+    private WorkPlanTreeBuilder() {
+    }
+
+    /**
+     * Adds each task to the children of its parent.
+     *
+     * @return the root tasks, in the order of the rows.
+     */
+    public static List<ExternalTask> buildTree(List<PageExternalTask> tasks) {
+        int count = tasks.size();
+
+        Map<String, Integer> indexById = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            indexById.put(tasks.get(i).getId(), i);
+        }
+
+        int orphans = 0;
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            String parentId = tasks.get(i).getParentId();
+            Integer parent = parentId == null ? null : indexById.get(parentId);
+            if (parentId != null && parent == null) {
+                orphans++;
+            }
+            parents[i] = (parent == null || parent == i) ? NO_PARENT : parent;
+        }
+
+        // Walks up the parents of each task, stopping at the first task already visited. Reaching a task of the current walk means a cycle.
+        byte[] states = new byte[count];
+        List<Integer> walk = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int current = i;
+            while (current != NO_PARENT && states[current] == NOT_VISITED) {
+                states[current] = VISITING;
+                walk.add(current);
+                current = parents[current];
+            }
+
+            if (current != NO_PARENT && states[current] == VISITING) {
+                logger.error("Cycle detected in the parents of Notion page " + tasks.get(current).getId() + ", it is imported as a root task");
+                parents[current] = NO_PARENT;
+            }
+
+            for (int visited : walk) {
+                states[visited] = VISITED;
+            }
+            walk.clear();
+        }
+
+        if (orphans > 0) {
+            logger.debug(orphans + " Notion pages have a parent that is not part of the synced rows, they are imported as root tasks");
+        }
+
+        List<ExternalTask> roots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (parents[i] == NO_PARENT) {
+                roots.add(tasks.get(i));
+            } else {
+                tasks.get(parents[i]).addChild(tasks.get(i));
+            }
+        }
+
+        return roots;
+    }
+}
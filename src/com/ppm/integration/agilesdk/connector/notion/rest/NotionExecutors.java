@@ -0,0 +1,86 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.rest;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background threads used by the connector. All threads are daemon threads so they never prevent the PPM server from shutting down.
+ */
+public class NotionExecutors {
+
+    private final static Logger logger = LogManager.getLogger(NotionExecutors.class);
+
+    private static final ExecutorService REQUEST_EXECUTOR = createRequestExecutor();
+
+    private static final ExecutorService PREFETCH_EXECUTOR = new ThreadPoolExecutor(0,
+            Math.max(1, Integer.getInteger(NotionConstants.SYSPROP_PREFETCH_MAX_THREADS, NotionConstants.DEFAULT_PREFETCH_MAX_THREADS)), 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), daemonThreadFactory("notion-prefetch"));
+
+    private NotionExecutors() {
+    }
+
+    /**
+     * Executor used to fetch the next pages of a paginated listing while the caller processes the current one.
+     * There's at most one running task per listing being read, and idle threads are released after one minute.
+     * When all its threads are busy, tasks are rejected with a {@link java.util.concurrent.RejectedExecutionException}, and the listing must be read without prefetching.
+     */
+    public static ExecutorService prefetchExecutor() {
+        return PREFETCH_EXECUTOR;
+    }
+
+    /**
+     * Executor running the asynchronous Notion API calls.
+     *
+     * On JVMs supporting virtual threads (Java 21+), each call runs in its own virtual thread, so waiting for Notion doesn't hold a platform thread.
+     * Otherwise, it's a bounded pool of daemon threads; when its queue is full, the call runs in the calling thread, which slows down callers instead of failing.
+     * Either way, the actual load on Notion is bounded by the rate limiter and the HTTP connection pool.
+     */
+    public static ExecutorService requestExecutor() {
+        return REQUEST_EXECUTOR;
+    }
+
+    private static ExecutorService createRequestExecutor() {
+        if (!"false".equalsIgnoreCase(System.getProperty(NotionConstants.SYSPROP_ASYNC_VIRTUAL_THREADS))) {
+            try {
+                // Looked up by reflection as the connector is compiled for Java 8.
+                Method newVirtualThreadExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService)newVirtualThreadExecutor.invoke(null);
+            } catch (NoSuchMethodException e) {
+                // Virtual threads are not supported by this JVM.
+            } catch (Exception e) {
+                logger.error("Cannot create virtual threads executor for asynchronous Notion API calls, using a thread pool instead", e);
+            }
+        }
+
+        int threads = Math.max(1, Integer.getInteger(NotionConstants.SYSPROP_ASYNC_THREADS, NotionConstants.DEFAULT_ASYNC_THREADS));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger(NotionConstants.SYSPROP_ASYNC_QUEUE_SIZE, NotionConstants.DEFAULT_ASYNC_QUEUE_SIZE))),
+                daemonThreadFactory("notion-request"), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static ThreadFactory daemonThreadFactory(String namePrefix) {
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        return r -> {
+            Thread t = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.rest;
+
+import com.kintana.core.logging.LogManager;
+import com.kintana.core.logging.Logger;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.wink.client.ClientConfig;
+import org.apache.wink.client.RestClient;
+import org.apache.wink.client.httpclient.ApacheHttpClientConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide HTTP transport to the Notion API.
+ *
+ * There is one transport per proxy host/port, each one backed by a pooled Apache HttpClient with persistent (keep-alive) connections.
+ * All the {@link NotionRestClient} instances using the same proxy share the same transport, so they reuse warm connections
+ * instead of doing a new TCP + TLS handshake for every service instance.
+ *
+ * Pool sizing and idle eviction can be tuned with the JVM system properties defined in {@link NotionConstants}.
+ */
+public class NotionHttpTransport {
+
+    private final static Logger logger = LogManager.getLogger(NotionHttpTransport.class);
+
+    private static final String DIRECT_CONNECTION_KEY = "direct";
+
+    private static final ConcurrentMap<String, NotionHttpTransport> transports = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService idleConnectionsEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "notion-idle-connections-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final ClientConfig clientConfig;
+
+    private final RestClient restClient;
+
+    /**
+     * @return the shared transport to use for the proxy settings of this REST config.
+     */
+    public static NotionHttpTransport get(NotionRestConfig restConfig) {
+        return get(restConfig.getProxyHost(), restConfig.getProxyPort());
+    }
+
+    /**
+     * @param proxyHost proxy host name, or null/blank if Notion is reached directly.
+     * @param proxyPort proxy port, ignored if there's no proxy host.
+     */
+    public static NotionHttpTransport get(String proxyHost, int proxyPort) {
+        final String key = StringUtils.isBlank(proxyHost) ? DIRECT_CONNECTION_KEY : proxyHost.trim() + ":" + proxyPort;
+
+        NotionHttpTransport transport = transports.get(key);
+
+        if (transport == null) {
+            transport = transports.computeIfAbsent(key, k -> new NotionHttpTransport(StringUtils.isBlank(proxyHost) ? null : new HttpHost(proxyHost.trim(), proxyPort)));
+        }
+
+        return transport;
+    }
+
+    private NotionHttpTransport(HttpHost proxy) {
+
+        int maxConnectionsPerRoute = Integer.getInteger(NotionConstants.SYSPROP_HTTP_MAX_CONNECTIONS_PER_ROUTE, NotionConstants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE);
+        int maxConnectionsTotal = Integer.getInteger(NotionConstants.SYSPROP_HTTP_MAX_CONNECTIONS_TOTAL, NotionConstants.DEFAULT_HTTP_MAX_CONNECTIONS_TOTAL);
+        int idleTimeoutSeconds = Integer.getInteger(NotionConstants.SYSPROP_HTTP_IDLE_TIMEOUT_SECONDS, NotionConstants.DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS);
+        int connectTimeoutMs = Integer.getInteger(NotionConstants.SYSPROP_HTTP_CONNECT_TIMEOUT_MS, NotionConstants.DEFAULT_HTTP_CONNECT_TIMEOUT_MS);
+        int readTimeoutMs = Integer.getInteger(NotionConstants.SYSPROP_HTTP_READ_TIMEOUT_MS, NotionConstants.DEFAULT_HTTP_READ_TIMEOUT_MS);
+
+        // We use the system SSL settings (javax.net.ssl.*) just like the default HttpURLConnection based Wink client does.
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(Math.max(maxConnectionsTotal, maxConnectionsPerRoute));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectTimeoutMs)
+                .build();
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig);
+
+        if (proxy != null) {
+            builder.setProxy(proxy);
+        }
+
+        CloseableHttpClient httpClient = builder.build();
+
+        clientConfig = new ApacheHttpClientConfig(httpClient);
+        clientConfig.connectTimeout(connectTimeoutMs);
+        clientConfig.readTimeout(readTimeoutMs);
+        if (proxy != null) {
+            clientConfig.proxyHost(proxy.getHostName());
+            clientConfig.proxyPort(proxy.getPort());
+        }
+
+        restClient = new RestClient(clientConfig);
+
+        // Connections that stayed unused for too long are likely to have been dropped by Notion or by the proxy, so we close them proactively.
+        long evictionPeriodSeconds = Math.max(1, idleTimeoutSeconds / 2);
+        idleConnectionsEvictor.scheduleWithFixedDelay(() -> {
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error("Error when evicting idle Notion HTTP connections", e);
+            }
+        }, evictionPeriodSeconds, evictionPeriodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wink RestClient is thread safe and can be shared; only the Resources it creates must not be.
+     */
+    public RestClient getRestClient() {
+        return restClient;
+    }
+
+    public ClientConfig getClientConfig() {
+        return clientConfig;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.rest;
+
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket pacing all the calls made to Notion with a given integration token.
+ *
+ * Notion allows an average of about 3 requests per second per integration, with small bursts. There is one limiter per integration token
+ * in the whole JVM, so concurrent syncs using the same token share the same budget instead of each of them getting throttled.
+ *
+ * When Notion answers with a 429, {@link #pauseFor(long)} blocks everybody using that token until the Retry-After delay has elapsed.
+ *
+ * Limiters of tokens that are no longer used are dropped when the limiter of a new token is created, so that the registry doesn't grow
+ * with every token ever used on the node. Callers should look up the limiter of their token for each request rather than keep it.
+ */
+public class NotionRateLimiter {
+
+    /** A limiter is dropped once it hasn't been used for that long and its bucket is full again. */
+    private static final long IDLE_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private static final ConcurrentMap<String, NotionRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final double permitsPerNano;
+
+    private final double maxBurst;
+
+    private double storedPermits;
+
+    private long lastRefillNanos;
+
+    private long pausedUntilNanos;
+
+    private long lastUsedNanos;
+
+    public static NotionRateLimiter forIntegrationToken(String integrationToken) {
+        return forTokenHash(NotionRestConfig.hashToken(integrationToken));
+    }
+
+    /**
+     * @param tokenHash the integration token, hashed with {@link NotionRestConfig#hashToken(String)}.
+     */
+    public static NotionRateLimiter forTokenHash(String tokenHash) {
+        NotionRateLimiter limiter = limiters.get(tokenHash);
+
+        if (limiter == null) {
+            evictIdleLimiters();
+            double requestsPerSecond = getDoubleProperty(NotionConstants.SYSPROP_API_REQUESTS_PER_SECOND, NotionConstants.DEFAULT_API_REQUESTS_PER_SECOND);
+            double burst = getDoubleProperty(NotionConstants.SYSPROP_API_BURST, NotionConstants.DEFAULT_API_BURST);
+            limiter = limiters.computeIfAbsent(tokenHash, k -> new NotionRateLimiter(requestsPerSecond, burst));
+        }
+
+        return limiter;
+    }
+
+    /**
+     * Drops the limiters that are idle. Only called when a new limiter is created, so that looking up an existing one never scans the registry.
+     */
+    private static void evictIdleLimiters() {
+        long now = System.nanoTime();
+        limiters.forEach((key, limiter) -> {
+            if (limiter.isIdle(now)) {
+                limiters.remove(key, limiter);
+            }
+        });
+    }
+
+    private static double getDoubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            double d = Double.parseDouble(value.trim());
+            return d > 0 ? d : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    NotionRateLimiter(double requestsPerSecond, double maxBurst) {
+        this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.maxBurst = Math.max(1d, maxBurst);
+        this.storedPermits = this.maxBurst;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+        this.lastUsedNanos = lastRefillNanos;
+    }
+
+    /**
+     * Parks the calling thread until it's allowed to send one request.
+     *
+     * @return how long the thread waited, in nanoseconds.
+     */
+    public long acquire() {
+        long waitNanos = reserve();
+
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestRequestException(429, "Interrupted while waiting for Notion API rate limit");
+            }
+        }
+
+        return waitNanos;
+    }
+
+    /**
+     * Blocks all requests for this integration for the given time. Called when Notion answers with HTTP 429.
+     */
+    public synchronized void pauseFor(long millis) {
+        long now = System.nanoTime();
+        refill(now);
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(millis));
+        // No permits are earned while paused, and we restart with an empty bucket to avoid hitting the limit again right away.
+        storedPermits = Math.min(storedPermits, 0d);
+        lastRefillNanos = Math.max(lastRefillNanos, pausedUntilNanos);
+    }
+
+    /**
+     * Takes one permit (possibly going in debt) and returns how long the caller must wait before using it.
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+        lastUsedNanos = now;
+
+        storedPermits -= 1d;
+
+        long waitNanos = Math.max(0L, pausedUntilNanos - now);
+
+        if (storedPermits < 0d) {
+            long debtNanos = (long)Math.ceil(-storedPermits / permitsPerNano);
+            waitNanos = Math.max(waitNanos, Math.max(0L, lastRefillNanos - now) + debtNanos);
+        }
+
+        return waitNanos;
+    }
+
+    /**
+     * @return true if no request was sent with this limiter for a while, and dropping it wouldn't let the next requests go faster than allowed.
+     */
+    private synchronized boolean isIdle(long now) {
+        refill(now);
+        return now - lastUsedNanos > IDLE_EVICTION_NANOS && now >= pausedUntilNanos && storedPermits >= maxBurst;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefillNanos) {
+            storedPermits = Math.min(maxBurst, storedPermits + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -10,6 +10,11 @@ import com.kintana.core.logging.LogLevel;
 import com.kintana.core.logging.LogManager;
 import com.kintana.core.logging.Logger;
 import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.ppm.integration.agilesdk.connector.notion.metrics.NotionMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.RequestAuditLog;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncTrace;
+import com.ppm.integration.agilesdk.connector.notion.metrics.TraceSpan;
 import org.apache.commons.lang.StringUtils;
 import org.apache.wink.client.ClientConfig;
 import org.apache.wink.client.ClientResponse;
@@ -17,32 +22,47 @@ import org.apache.wink.client.Resource;
 import org.apache.wink.client.RestClient;
 
 import javax.ws.rs.core.MediaType;
-import java.io.UnsupportedEncodingException;
 import java.net.*;
-import java.util.UUID;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class NotionRestClient {
 
-    private boolean ENABLE_REST_CALLS_STATUS_LOG = true;
-
     private final static Logger logger = LogManager.getLogger(NotionRestClient.class);
 
-    private RestClient restClient;
-    private NotionRestConfig notionConfig;
-    private ClientConfig clientConfig;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000L;
+
+    /** Sent payloads and received responses are truncated to this length in error messages. */
+    private static final int MAX_ERROR_BODY_CHARS = 2000;
+
+    private final RestClient restClient;
+    private final NotionRestConfig notionConfig;
+    private final ClientConfig clientConfig;
+    private final String tokenHash;
+    private RetryPolicy retryPolicy = RetryPolicy.fromSystemProperties();
+    private int maxThrottledRetries = Integer.getInteger(NotionConstants.SYSPROP_API_MAX_THROTTLED_RETRIES, NotionConstants.DEFAULT_API_MAX_THROTTLED_RETRIES);
 
     public NotionRestClient(NotionRestConfig notionConfig) {
         this.notionConfig = notionConfig;
-        this.clientConfig = notionConfig.getClientConfig();
-        this.restClient = new RestClient(clientConfig);
+        NotionHttpTransport transport = NotionHttpTransport.get(notionConfig);
+        this.clientConfig = transport.getClientConfig();
+        this.restClient = transport.getRestClient();
+        this.tokenHash = NotionRestConfig.hashToken(notionConfig.getAuthToken());
     }
 
     /**
 
      * @param includeContentTypeHeader if true, we'll include the JSon "Content-Type" header. If false, we'll not include any Content-type header (to use when using GET or DELETE).
+     * @param span the span of this HTTP call, sent in the B3 tracing headers.
      * @return
      */
-    private Resource getNotionResource(String fullUrl, boolean includeContentTypeHeader, String uuid) {
+    private Resource getNotionResource(String fullUrl, boolean includeContentTypeHeader, TraceSpan span) {
         Resource resource;
         try {
             URL url = new URL(fullUrl);
@@ -50,18 +70,22 @@ public class NotionRestClient {
             if (url.getPort() > 0) {
                 urlPath = urlPath + ":" + url.getPort();
             }
-            URI uri = null;
-            try {
-                uri = new URI(url.getProtocol(), urlPath, url.getPath(), url.getQuery() == null ? null : URLDecoder.decode(url.getQuery(), "UTF-8"), null);
-            } catch (UnsupportedEncodingException e) {
-                // This will never happen.
-                throw new RuntimeException("Impossible encoding error occurred", e);
+            URI uri = new URI(url.getProtocol(), urlPath, url.getPath(), null, null);
+            if (url.getQuery() != null) {
+                // Query strings are built already encoded (e.g. Notion property ids in filter_properties), so they're sent as is:
+                // decoding them again would turn an encoded '&', '=' or '+' into a separator or a space.
+                uri = new URI(uri.toASCIIString() + "?" + url.getQuery());
             }
             resource = restClient.resource(uri).accept(MediaType.APPLICATION_JSON).header("Authorization", "Bearer "+ notionConfig.getAuthToken());
 
-            // Following header is required for easy HTTP request tracing in systems such as DataPower.
-            if (uuid != null) {
-                resource.header("X-B3-TraceId", uuid);
+            // Following headers are required for easy HTTP request tracing in systems such as DataPower.
+            // All calls of a sync share the same trace id, and each call has its own span id.
+            if (span != null) {
+                resource.header("X-B3-TraceId", span.getTraceId());
+                resource.header("X-B3-SpanId", span.getSpanId());
+                if (span.getParentSpanId() != null) {
+                    resource.header("X-B3-ParentSpanId", span.getParentSpanId());
+                }
             }
 
             if (includeContentTypeHeader) {
@@ -80,30 +104,243 @@ public class NotionRestClient {
         return resource;
     }
 
+    /**
+     * Retries are taken from the budget of the work plan sync running in the current thread, if any.
+     */
     public ClientResponse sendGet(String uri) {
+        return sendGet(uri, RetryBudget.ofCurrentSyncOr(RetryBudget.perRequest()));
+    }
 
-        if (ENABLE_REST_CALLS_STATUS_LOG) {
-            logger.log(LogLevel.STATUS, "GET "+uri);
+    /**
+     * @param retryBudget retries will be taken from this budget if the call fails with a transient error.
+     */
+    public ClientResponse sendGet(String uri, RetryBudget retryBudget) {
+        return execute("GET", uri, null, 200, retryBudget);
+    }
+
+    /**
+     * POST requests are not retried on server errors, as they might not be idempotent.
+     */
+    public ClientResponse sendPost(String uri, String jsonPayload, int expectedHttpStatusCode) {
+        return execute("POST", uri, jsonPayload, expectedHttpStatusCode, null);
+    }
+
+    /**
+     * Use this for POST requests that are safe to send again, such as searches and database queries.
+     * @param retryBudget retries will be taken from this budget if the call fails with a transient error.
+     */
+    public ClientResponse sendPost(String uri, String jsonPayload, int expectedHttpStatusCode, RetryBudget retryBudget) {
+        return execute("POST", uri, jsonPayload, expectedHttpStatusCode, retryBudget);
+    }
+
+    public ClientResponse sendPut(String uri, String jsonPayload, int expectedHttpStatusCode) {
+        return execute("PUT", uri, jsonPayload, expectedHttpStatusCode, RetryBudget.ofCurrentSyncOr(RetryBudget.perRequest()));
+    }
+
+    /**
+     * Asynchronous version of {@link #sendGet(String)}. The request is sent from the {@link NotionExecutors#requestExecutor()}.
+     */
+    public CompletableFuture<ClientResponse> sendGetAsync(String uri) {
+        return sendGetAsync(uri, Function.identity());
+    }
+
+    /**
+     * Sends the request asynchronously, and processes the response with the handler in the same background thread.
+     * The request and the handler are part of the sync running in the calling thread, if any (same trace, metrics and retry budget).
+     * This is the preferred way to read the response body without blocking the caller.
+     */
+    public <T> CompletableFuture<T> sendGetAsync(String uri, Function<ClientResponse, T> responseHandler) {
+        return CompletableFuture.supplyAsync(SyncMetrics.bindToCurrent(() -> responseHandler.apply(sendGet(uri))), NotionExecutors.requestExecutor());
+    }
+
+    /**
+     * Asynchronous version of {@link #sendPost(String, String, int, RetryBudget)}. Pass a null retry budget if the request must not be retried.
+     */
+    public <T> CompletableFuture<T> sendPostAsync(String uri, String jsonPayload, int expectedHttpStatusCode, RetryBudget retryBudget, Function<ClientResponse, T> responseHandler) {
+        return CompletableFuture.supplyAsync(SyncMetrics.bindToCurrent(() -> responseHandler.apply(execute("POST", uri, jsonPayload, expectedHttpStatusCode, retryBudget))), NotionExecutors.requestExecutor());
+    }
+
+    /**
+     * Asynchronous version of {@link #sendPut(String, String, int)}.
+     */
+    public <T> CompletableFuture<T> sendPutAsync(String uri, String jsonPayload, int expectedHttpStatusCode, Function<ClientResponse, T> responseHandler) {
+        return CompletableFuture.supplyAsync(SyncMetrics.bindToCurrent(() -> responseHandler.apply(sendPut(uri, jsonPayload, expectedHttpStatusCode))), NotionExecutors.requestExecutor());
+    }
+
+    /**
+     * Sends the request once the rate limiter allows it. If Notion answers with HTTP 429, we wait for the Retry-After delay
+     * (blocking all other calls using the same integration token) and send the request again.
+     *
+     * If a retry budget is provided, transient server and network errors are also retried with an exponential backoff, as defined by the {@link RetryPolicy}.
+     * If it's null, the request is never retried except for HTTP 429.
+     *
+     * Each attempt is recorded in the {@link NotionMetrics}, in the {@link RequestAuditLog} and as a fetch span of the {@link SyncTrace} of the current sync,
+     * and the whole call time in the fetch phase of the current sync.
+     */
+    private ClientResponse execute(String verb, String uri, String jsonPayload, int expectedHttpStatusCode, RetryBudget retryBudget) {
+
+        long startNanos = System.nanoTime();
+        try {
+            return execute(verb, uri, jsonPayload, expectedHttpStatusCode, retryBudget, NotionMetrics.endpointOf(verb, uri));
+        } finally {
+            SyncMetrics.addToCurrent(SyncMetrics.Phase.FETCH, System.nanoTime() - startNanos);
         }
+    }
+
+    private ClientResponse execute(String verb, String uri, String jsonPayload, int expectedHttpStatusCode, RetryBudget retryBudget, String endpoint) {
+
+        NotionMetrics metrics = NotionMetrics.get();
+        RequestAuditLog auditLog = RequestAuditLog.get();
+        long requestBytes = NotionMetrics.utf8Length(jsonPayload);
 
-        String uuid = UUID.randomUUID().toString();
-        Resource resource = this.getNotionResource(uri, false, uuid);
-        ClientResponse response = resource.get();
+        // Calls made outside of a sync still get a trace id, shared by all their attempts.
+        SyncTrace trace = SyncTrace.currentOrDetached();
+        TraceSpan span;
 
-        checkResponseStatus(200, response, uri, "GET", null, uuid);
+        ClientResponse response;
+        int throttledRetries = 0;
+        int attempts = 0;
+
+        while (true) {
+            long throttleWaitNanos = NotionRateLimiter.forTokenHash(tokenHash).acquire();
+            if (throttleWaitNanos > 0) {
+                metrics.recordThrottleWait(throttleWaitNanos);
+            }
+
+            attempts++;
+            span = trace.startSpan(SyncMetrics.Phase.FETCH.getLabel()).tag("endpoint", endpoint).tag("attempt", attempts);
+            if (throttleWaitNanos > 0) {
+                span.tag("throttleWaitMs", TimeUnit.NANOSECONDS.toMillis(throttleWaitNanos));
+            }
+
+            Resource resource = this.getNotionResource(uri, !"GET".equals(verb), span);
+
+            long sentNanos = System.nanoTime();
+            try {
+                switch (verb) {
+                    case "POST":
+                        response = resource.post(jsonPayload);
+                        break;
+                    case "PUT":
+                        response = resource.put(jsonPayload);
+                        break;
+                    default:
+                        response = resource.get();
+                }
+            } catch (RuntimeException e) {
+                long latencyNanos = System.nanoTime() - sentNanos;
+                metrics.recordRequest(endpoint, 0, latencyNanos, requestBytes);
+                auditLog.record(verb, uri, 0, latencyNanos, span.getTraceId(), span.getSpanId(), requestBytes, -1L);
+                span.tag("status", 0).tag("error", e.getClass().getSimpleName()).end();
+                if (retryBudget != null && retryPolicy.isRetryable(e) && retryPolicy.canRetry(attempts) && retryBudget.tryConsume()) {
+                    backoff(verb, uri, attempts, e.getMessage());
+                    continue;
+                }
+                auditLog.dumpOnError(verb + " " + uri + " failed: " + e);
+                throw e;
+            }
+
+            int statusCode = response.getStatusCode();
+            long latencyNanos = System.nanoTime() - sentNanos;
+            metrics.recordRequest(endpoint, statusCode, latencyNanos, requestBytes);
+            auditLog.record(verb, uri, statusCode, latencyNanos, span.getTraceId(), span.getSpanId(), requestBytes, getContentLength(response));
+            span.tag("status", statusCode).end();
+
+            if (statusCode == HTTP_TOO_MANY_REQUESTS) {
+                metrics.recordThrottledResponse();
+            }
+
+            if (statusCode == HTTP_TOO_MANY_REQUESTS && throttledRetries < maxThrottledRetries) {
+                // Being throttled doesn't count as a failed attempt.
+                attempts--;
+                throttledRetries++;
+                long retryAfterMs = getRetryAfterMillis(response);
+                discardEntity(response);
+                logger.log(LogLevel.STATUS, "Notion API rate limit reached for " + verb + " " + uri + ", retrying in " + retryAfterMs + "ms");
+                NotionRateLimiter.forTokenHash(tokenHash).pauseFor(retryAfterMs);
+                continue;
+            }
+
+            if (statusCode != expectedHttpStatusCode && retryBudget != null && retryPolicy.isRetryable(statusCode) && retryPolicy.canRetry(attempts) && retryBudget.tryConsume()) {
+                discardEntity(response);
+                backoff(verb, uri, attempts, "HTTP status " + statusCode);
+                continue;
+            }
+
+            break;
+        }
+
+        checkResponseStatus(expectedHttpStatusCode, response, uri, verb, jsonPayload, span);
 
         return response;
     }
 
-    private void checkResponseStatus(int expectedHttpStatusCode, ClientResponse response, String uri, String verb, String payload, String uuid) {
+    private void backoff(String verb, String uri, int attempts, String reason) {
+        logger.log(LogLevel.STATUS, "Transient error on " + verb + " " + uri + " (" + reason + "), attempt " + attempts + " failed, retrying");
+        NotionMetrics.get().recordRetry();
+        retryPolicy.sleepBeforeRetry(attempts);
+    }
+
+    /**
+     * Notion sends the delay in seconds in the Retry-After header, but the HTTP spec also allows a date.
+     */
+    private long getRetryAfterMillis(ClientResponse response) {
+        String retryAfter = null;
+        try {
+            retryAfter = response.getHeaders().getFirst("Retry-After");
+        } catch (Exception e) {
+            // No header, we'll use the default delay.
+        }
+
+        if (!StringUtils.isBlank(retryAfter)) {
+            try {
+                return Math.max(0L, (long)(Double.parseDouble(retryAfter.trim()) * 1000d));
+            } catch (NumberFormatException e) {
+                try {
+                    long retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                    return Math.max(0L, retryAt - System.currentTimeMillis());
+                } catch (DateTimeParseException dtpe) {
+                    // Unknown format, we'll use the default delay.
+                }
+            }
+        }
+
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+
+    /**
+     * @return the size of the response body announced by Notion, or -1 if unknown (e.g. chunked response).
+     */
+    private long getContentLength(ClientResponse response) {
+        try {
+            String contentLength = response.getHeaders().getFirst("Content-Length");
+            return StringUtils.isBlank(contentLength) ? -1L : Long.parseLong(contentLength.trim());
+        } catch (Exception e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Reads the whole response so that the HTTP connection can go back to the pool.
+     */
+    private void discardEntity(ClientResponse response) {
+        try {
+            response.getEntity(String.class);
+        } catch (Exception e) {
+            // Nothing to discard.
+        }
+    }
+
+    private void checkResponseStatus(int expectedHttpStatusCode, ClientResponse response, String uri, String verb, String payload, TraceSpan span) {
 
         if (response.getStatusCode() != expectedHttpStatusCode) {
             StringBuilder errorMessage = new StringBuilder(String.format("## Unexpected HTTP response status code %s for %s uri %s, expected %s", response.getStatusCode(), verb,  uri, expectedHttpStatusCode));
-            if (uuid != null) {
-                errorMessage.append(System.lineSeparator()).append("Value of HTTP tracking header X-B3-TraceId:").append(uuid);
+            if (span != null) {
+                errorMessage.append(System.lineSeparator()).append("Value of HTTP tracking header X-B3-TraceId:").append(span.getTraceId())
+                        .append(", X-B3-SpanId:").append(span.getSpanId());
             }
             if (payload != null) {
-                errorMessage.append(System.lineSeparator()).append(System.lineSeparator()).append("# Sent Payload:").append(System.lineSeparator()).append(payload);
+                errorMessage.append(System.lineSeparator()).append(System.lineSeparator()).append("# Sent Payload:").append(System.lineSeparator()).append(truncate(payload));
             }
             String responseStr = null;
             try {
@@ -112,41 +349,21 @@ public class NotionRestClient {
                 // we don't do anything if we cannot get the response.
             }
             if (!StringUtils.isBlank(responseStr)) {
-                errorMessage.append(System.lineSeparator()).append(System.lineSeparator()).append("# Received Response:").append(System.lineSeparator()).append(responseStr);
+                errorMessage.append(System.lineSeparator()).append(System.lineSeparator()).append("# Received Response:").append(System.lineSeparator()).append(truncate(responseStr));
             }
 
-            throw new RestRequestException(response.getStatusCode(), errorMessage.toString());
-        }
-
-    }
-
-    public ClientResponse sendPost(String uri, String jsonPayload, int expectedHttpStatusCode) {
+            RequestAuditLog.get().dumpOnError(verb + " " + uri + " returned HTTP " + response.getStatusCode());
 
-        if (ENABLE_REST_CALLS_STATUS_LOG) {
-            logger.log(LogLevel.STATUS, "POST "+uri);
+            throw new RestRequestException(response.getStatusCode(), errorMessage.toString());
         }
 
-        String uuid = UUID.randomUUID().toString();
-        Resource resource = this.getNotionResource(uri, true, uuid);
-        ClientResponse response = resource.post(jsonPayload);
-        checkResponseStatus(expectedHttpStatusCode, response, uri, "POST", jsonPayload, uuid);
-
-        return response;
     }
 
-    public ClientResponse sendPut(String uri, String jsonPayload, int expectedHttpStatusCode) {
-
-        if (ENABLE_REST_CALLS_STATUS_LOG) {
-            logger.log(LogLevel.STATUS, "PUT "+uri);
+    private static String truncate(String body) {
+        if (body.length() <= MAX_ERROR_BODY_CHARS) {
+            return body;
         }
-
-        String uuid = UUID.randomUUID().toString();
-        Resource resource = this.getNotionResource(uri,true, uuid);
-        ClientResponse response = resource.put(jsonPayload);
-
-        checkResponseStatus(expectedHttpStatusCode, response, uri, "PUT", jsonPayload, uuid);
-
-        return response;
+        return body.substring(0, MAX_ERROR_BODY_CHARS) + "... (" + (body.length() - MAX_ERROR_BODY_CHARS) + " more characters)";
     }
 
     public String getIntegrationToken() {
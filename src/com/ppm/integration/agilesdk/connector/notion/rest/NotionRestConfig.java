@@ -8,27 +8,44 @@ package com.ppm.integration.agilesdk.connector.notion.rest;
 
 import org.apache.wink.client.ClientConfig;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 public class NotionRestConfig {
-    private ClientConfig clientConfig;
+
+    private String proxyHost;
+
+    private int proxyPort = -1;
 
     private String authToken;
 
+    /**
+     * @return the client config of the shared, pooled HTTP transport matching the proxy settings.
+     */
     public ClientConfig getClientConfig() {
-        return clientConfig;
+        return NotionHttpTransport.get(proxyHost, proxyPort).getClientConfig();
     }
 
     public NotionRestConfig() {
-        clientConfig = new ClientConfig();
     }
 
 
     public ClientConfig setProxy(String proxyHost, String proxyPort) {
 
         if (proxyHost != null && !proxyHost.isEmpty() && proxyPort != null && !proxyPort.isEmpty()) {
-            clientConfig.proxyHost(proxyHost);
-            clientConfig.proxyPort(Integer.parseInt(proxyPort));
+            this.proxyHost = proxyHost;
+            this.proxyPort = Integer.parseInt(proxyPort);
         }
-        return clientConfig;
+        return getClientConfig();
+    }
+
+    public String getProxyHost() {
+        return proxyHost;
+    }
+
+    public int getProxyPort() {
+        return proxyPort;
     }
 
 
@@ -40,4 +57,24 @@ public class NotionRestConfig {
         this.authToken = authToken;
     }
 
+    /**
+     * @return a SHA-256 hash of the integration token, to be used as a key of JVM-wide structures instead of the token itself.
+     */
+    public static String hashToken(String authToken) {
+        if (authToken == null) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // This will never happen, SHA-256 is always available.
+            throw new RuntimeException("Impossible hashing error occurred", e);
+        }
+    }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.rest;
+
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maximum number of retries allowed for a group of requests, typically all the requests of one work plan sync.
+ *
+ * A per-sync budget makes sure that a Notion outage fails the sync in a reasonable time instead of having every single request exhaust its own retries.
+ * It is thread safe so that it can be shared by requests running concurrently for the same sync.
+ */
+public class RetryBudget {
+
+    private final AtomicInteger remainingRetries;
+
+    public RetryBudget(int maxRetries) {
+        this.remainingRetries = new AtomicInteger(Math.max(0, maxRetries));
+    }
+
+    /**
+     * @return a budget for one single request, where retries are only limited by the {@link RetryPolicy} max attempts.
+     */
+    public static RetryBudget perRequest() {
+        return new RetryBudget(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the budget of the work plan sync running in the current thread, or the given budget for requests made outside of a sync.
+     */
+    public static RetryBudget ofCurrentSyncOr(RetryBudget outsideOfSync) {
+        SyncMetrics syncMetrics = SyncMetrics.current();
+        return syncMetrics != null ? syncMetrics.getRetryBudget() : outsideOfSync;
+    }
+
+    /**
+     * @return true if one retry was taken from the budget, false if the budget is exhausted.
+     */
+    public boolean tryConsume() {
+        while (true) {
+            int remaining = remainingRetries.get();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (remainingRetries.compareAndSet(remaining, remaining - 1)) {
+                return true;
+            }
+        }
+    }
+
+    public int getRemainingRetries() {
+        return remainingRetries.get();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * © Copyright 2019 - 2020 Micro Focus or one of its affiliates.
+ */
+
+package com.ppm.integration.agilesdk.connector.notion.rest;
+
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed Notion calls are worth retrying, and how long to wait before each retry.
+ *
+ * Transient server errors (500, 502, 503, 504), Notion transaction conflicts (409) and network errors (timeouts, connection resets...) are retried
+ * with an exponential backoff. The delay is randomized ("full jitter") so that concurrent syncs don't all hit Notion again at the same moment.
+ *
+ * HTTP 429 is not handled here, as it comes with its own Retry-After delay and is managed with the {@link NotionRateLimiter}.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+
+    private final long baseDelayMs;
+
+    private final long maxDelayMs;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(1L, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+    }
+
+    /**
+     * @return the retry policy configured with the JVM system properties.
+     */
+    public static RetryPolicy fromSystemProperties() {
+        return new RetryPolicy(Integer.getInteger(NotionConstants.SYSPROP_API_RETRY_MAX_ATTEMPTS, NotionConstants.DEFAULT_API_RETRY_MAX_ATTEMPTS),
+                Long.getLong(NotionConstants.SYSPROP_API_RETRY_BASE_DELAY_MS, NotionConstants.DEFAULT_API_RETRY_BASE_DELAY_MS),
+                Long.getLong(NotionConstants.SYSPROP_API_RETRY_MAX_DELAY_MS, NotionConstants.DEFAULT_API_RETRY_MAX_DELAY_MS));
+    }
+
+    public boolean isRetryable(int httpStatusCode) {
+        switch (httpStatusCode) {
+            case 409: // conflict_error, Notion asks to retry
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Wink wraps network errors in a ClientRuntimeException, so we look for an IOException (socket timeout, connection reset, etc.) in the causes.
+     */
+    public boolean isRetryable(Throwable error) {
+        Throwable cause = error;
+        int depth = 0;
+        while (cause != null && depth++ < 10) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @param attempt number of attempts already done for this request, starting at 1.
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * @param attempt number of attempts already done for this request, starting at 1.
+     * @return a random delay between 0 and min(maxDelay, baseDelay * 2^(attempt-1)).
+     */
+    public long getBackoffMillis(int attempt) {
+        int exponent = Math.min(Math.max(0, attempt - 1), 30);
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << exponent);
+        if (ceiling <= 0) {
+            ceiling = maxDelayMs;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Parks the calling thread for the backoff delay of the given attempt.
+     */
+    public void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(getBackoffMillis(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestRequestException(503, "Interrupted while waiting to retry a Notion API call");
+        }
+    }
+}
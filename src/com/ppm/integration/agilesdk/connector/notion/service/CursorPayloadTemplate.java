@@ -0,0 +1,46 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.json.NotionGson;
+
+/**
+ * JSON payload of a paginated request, split once so that the payload of each next page is built by simply appending the start_cursor,
+ * without parsing and re-serializing the whole payload for each page.
+ */
+class CursorPayloadTemplate {
+
+    private final String firstPagePayload;
+
+    private final String prefix;
+
+    private final boolean needsSeparator;
+
+    CursorPayloadTemplate(String nonPaginatedJsonPayload) {
+        this.firstPagePayload = nonPaginatedJsonPayload;
+        String trimmed = nonPaginatedJsonPayload.trim();
+        int closingBrace = trimmed.lastIndexOf('}');
+        if (!trimmed.startsWith("{") || closingBrace < 0) {
+            throw new IllegalArgumentException("Paginated request payload must be a JSON object: " + nonPaginatedJsonPayload);
+        }
+        this.prefix = trimmed.substring(0, closingBrace).trim();
+        this.needsSeparator = !"{".equals(prefix);
+    }
+
+    /**
+     * @param cursor the next_cursor of the previous page, or null for the first page.
+     */
+    String forCursor(String cursor) {
+        if (cursor == null) {
+            return firstPagePayload;
+        }
+
+        String quotedCursor = NotionGson.get().toJson(cursor);
+
+        return new StringBuilder(prefix.length() + quotedCursor.length() + 20)
+                .append(prefix)
+                .append(needsSeparator ? ", " : "")
+                .append("\"start_cursor\": ")
+                .append(quotedCursor)
+                .append('}')
+                .toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.model.NotionDatabase;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of a Notion database as of the last sync, used to only retrieve the rows modified since then on the next sync.
+ *
+ * Snapshots are immutable and can be shared between threads.
+ */
+public class DatabaseSnapshot {
+
+    private final String querySignature;
+
+    private final List<NotionPage> rows;
+
+    private final String watermark;
+
+    private final long lastFullSyncTime;
+
+    private final NotionDatabase schema;
+
+    /**
+     * @param querySignature identifies the query that retrieved these rows (sorting, filters...). A snapshot can only be reused by the same query.
+     * @param rows all the rows of the database, in the order returned by Notion.
+     * @param lastFullSyncTime time (epoch millis) when all the rows were last retrieved from Notion.
+     * @param schema the database schema at the time of the last full sync, if known.
+     */
+    public DatabaseSnapshot(String querySignature, List<NotionPage> rows, long lastFullSyncTime, NotionDatabase schema) {
+        this.querySignature = querySignature;
+        this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+        this.watermark = computeWatermark(rows);
+        this.lastFullSyncTime = lastFullSyncTime;
+        this.schema = schema;
+    }
+
+    /**
+     * @return the most recent last_edited_time of all rows. Notion timestamps are all in the same ISO-8601 UTC format, so they can be compared as strings.
+     */
+    static String computeWatermark(Collection<NotionPage> rows) {
+        String watermark = null;
+        for (NotionPage row : rows) {
+            if (row.last_edited_time != null && (watermark == null || row.last_edited_time.compareTo(watermark) > 0)) {
+                watermark = row.last_edited_time;
+            }
+        }
+        return watermark;
+    }
+
+    /**
+     * @return a new snapshot where the changed rows replace the previous version of the same rows, and new rows are added at the end.
+     */
+    public DatabaseSnapshot mergeChanges(List<NotionPage> changedRows) {
+        Map<String, NotionPage> rowsById = new LinkedHashMap<>((rows.size() + changedRows.size()) * 4 / 3 + 1);
+        for (NotionPage row : rows) {
+            rowsById.put(row.id, row);
+        }
+        for (NotionPage changedRow : changedRows) {
+            rowsById.put(changedRow.id, changedRow);
+        }
+        return new DatabaseSnapshot(querySignature, new ArrayList<>(rowsById.values()), lastFullSyncTime, schema);
+    }
+
+    public String getQuerySignature() {
+        return querySignature;
+    }
+
+    public List<NotionPage> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the last_edited_time from which modified rows must be retrieved on next sync, or null if there are no rows.
+     */
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public long getLastFullSyncTime() {
+        return lastFullSyncTime;
+    }
+
+    /**
+     * @return the database schema, or null if it wasn't known at the time of the last full sync.
+     */
+    public NotionDatabase getSchema() {
+        return schema;
+    }
+}
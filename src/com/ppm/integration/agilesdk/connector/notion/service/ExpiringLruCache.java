@@ -0,0 +1,89 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe cache with a max number of entries and a time to live.
+ * Least recently used entries are evicted once the max size is reached, and entries older than the TTL are never returned.
+ *
+ * Cached values are shared between threads, so they must not be modified once put in the cache.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final long ttlNanos;
+
+    private final Map<K, CachedValue<V>> entries;
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final long loadedAtNanos;
+        private final long expiresAtNanos;
+
+        private CachedValue(V value, long loadedAtNanos, long expiresAtNanos) {
+            this.value = value;
+            this.loadedAtNanos = loadedAtNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    public ExpiringLruCache(final int maxEntries, long ttl, TimeUnit ttlUnit) {
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if there is none or it has expired.
+     */
+    public synchronized V get(K key) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            // Expired entries are kept until evicted, so they can be revalidated.
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @return the cached value even if it has expired, as long as it was put in the cache less than maxAge ago; null otherwise.
+     * Used to check whether an expired value is still up to date, and if so {@link #renew(Object, Object)} it instead of loading it again.
+     */
+    public synchronized V getExpired(K key, long maxAge, TimeUnit maxAgeUnit) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.loadedAtNanos >= maxAgeUnit.toNanos(maxAge)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (ttlNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.put(key, new CachedValue<>(value, now, now + ttlNanos));
+    }
+
+    /**
+     * Restarts the TTL of a cached value that was found to be still up to date. Its load time is not changed.
+     */
+    public synchronized void renew(K key, V value) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry != null && entry.value == value) {
+            entries.put(key, new CachedValue<>(value, entry.loadedAtNanos, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,286 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.json.NotionGson;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionDatabase;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Stores database snapshots on disk, one binary file per database, so that incremental syncs survive PPM server restarts.
+ * Most recently used snapshots are also kept in memory.
+ *
+ * File layout: a header (magic number, format version, query signature, last full sync time, schema JSON) followed by page records.
+ * Each record is made of its length, its CRC32 and the page encoded with {@link NotionPageBinaryCodec}.
+ * <ul>
+ *     <li>A full sync rewrites the whole file in a temp file, which then atomically replaces the previous one.</li>
+ *     <li>An incremental sync only appends the changed pages at the end of the file. When reading the file, a record replaces any previous record of the same page.
+ *     The file is rewritten once it contains too many outdated records.</li>
+ *     <li>A truncated or corrupted record (e.g. JVM killed while appending) ends the file: previous records are still used, and the
+ *     next append starts from the last valid record.</li>
+ * </ul>
+ * Any error when reading or writing a file is logged and the snapshot is ignored, which simply results in a full sync.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+
+    private final static Logger logger = Logger.getLogger(FileSnapshotStore.class);
+
+    private static final int MAGIC = 0x4E534E50; // "NSNP"
+
+    private static final short FORMAT_VERSION = 2;
+
+    private static final String FILE_EXTENSION = ".snapshot";
+
+    private final Path directory;
+
+    private final SnapshotStore memoryCache;
+
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    /** Valid length and records count of each file, as last read or written by this JVM. */
+    private final ConcurrentMap<String, FileState> fileStates = new ConcurrentHashMap<>();
+
+    private static class FileState {
+        private final long validLength;
+        private final int records;
+
+        private FileState(long validLength, int records) {
+            this.validLength = validLength;
+            this.records = records;
+        }
+    }
+
+    public FileSnapshotStore(Path directory, SnapshotStore memoryCache) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.memoryCache = memoryCache;
+    }
+
+    @Override
+    public DatabaseSnapshot load(String key) {
+        synchronized (lockFor(key)) {
+            DatabaseSnapshot snapshot = memoryCache.load(key);
+            if (snapshot != null) {
+                return snapshot;
+            }
+
+            Path file = getFile(key);
+            if (!Files.exists(file)) {
+                return null;
+            }
+
+            try {
+                snapshot = readFile(key, file);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Cannot read Notion database snapshot file " + file + ", ignoring it", e);
+                fileStates.remove(key);
+                return null;
+            }
+
+            if (snapshot != null) {
+                memoryCache.save(key, snapshot, null);
+            }
+
+            return snapshot;
+        }
+    }
+
+    @Override
+    public void save(String key, DatabaseSnapshot snapshot, List<NotionPage> changedRows) {
+        synchronized (lockFor(key)) {
+            memoryCache.save(key, snapshot, changedRows);
+
+            Path file = getFile(key);
+            try {
+                FileState state = fileStates.get(key);
+                if (changedRows == null || state == null || !Files.exists(file)
+                        || state.records + changedRows.size() > 2 * snapshot.getRows().size() + 100) {
+                    writeFile(key, file, snapshot);
+                } else {
+                    appendToFile(key, file, state, changedRows);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Cannot write Notion database snapshot file " + file, e);
+                fileStates.remove(key);
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ioe) {
+                    // Nothing more we can do.
+                }
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        synchronized (lockFor(key)) {
+            memoryCache.remove(key);
+            fileStates.remove(key);
+            try {
+                Files.deleteIfExists(getFile(key));
+            } catch (IOException e) {
+                logger.error("Cannot delete Notion database snapshot file for " + key, e);
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks.computeIfAbsent(key, k -> new Object());
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key.replaceAll("[^A-Za-z0-9_-]", "_") + FILE_EXTENSION);
+    }
+
+    private DatabaseSnapshot readFile(String key, Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot file too large: " + size);
+            }
+            buffer = ByteBuffer.allocate((int)size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Reading whole file.
+            }
+            buffer.flip();
+        }
+
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+            logger.info("Ignoring Notion database snapshot file " + file + " with unknown format");
+            return null;
+        }
+
+        String querySignature = NotionPageBinaryCodec.readString(buffer);
+        long lastFullSyncTime = buffer.getLong();
+        String schemaJson = NotionPageBinaryCodec.readString(buffer);
+        NotionDatabase schema = schemaJson == null ? null : NotionGson.get().fromJson(schemaJson, NotionDatabase.class);
+
+        Map<String, NotionPage> rowsById = new LinkedHashMap<>();
+        int records = 0;
+        long validLength = buffer.position();
+        CRC32 crc = new CRC32();
+
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            if ((int)crc.getValue() != expectedCrc) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            NotionPage page = NotionPageBinaryCodec.read(record);
+            rowsById.put(page.id, page);
+
+            buffer.position(buffer.position() + length);
+            records++;
+            validLength = buffer.position();
+        }
+
+        if (validLength < buffer.limit()) {
+            logger.info("Ignoring truncated or corrupted records at the end of Notion database snapshot file " + file);
+        }
+
+        fileStates.put(key, new FileState(validLength, records));
+
+        return new DatabaseSnapshot(querySignature, new ArrayList<>(rowsById.values()), lastFullSyncTime, schema);
+    }
+
+    private void writeFile(String key, Path file, DatabaseSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(MAGIC);
+        headerOut.writeShort(FORMAT_VERSION);
+        NotionPageBinaryCodec.writeString(headerOut, snapshot.getQuerySignature());
+        headerOut.writeLong(snapshot.getLastFullSyncTime());
+        NotionPageBinaryCodec.writeString(headerOut, snapshot.getSchema() == null ? null : NotionGson.get().toJson(snapshot.getSchema()));
+        headerOut.flush();
+
+        Path tempFile = Files.createTempFile(directory, "notion", ".tmp");
+        long length;
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+                writeRecords(channel, snapshot.getRows());
+                channel.force(true);
+                length = channel.size();
+            }
+
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        fileStates.put(key, new FileState(length, snapshot.getRows().size()));
+    }
+
+    private void appendToFile(String key, Path file, FileState state, List<NotionPage> changedRows) throws IOException {
+        long length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Drop any partially written record left by a previous failure.
+            if (channel.size() != state.validLength) {
+                channel.truncate(state.validLength);
+            }
+            channel.position(state.validLength);
+            writeRecords(channel, changedRows);
+            channel.force(false);
+            length = channel.position();
+        }
+
+        fileStates.put(key, new FileState(length, state.records + changedRows.size()));
+    }
+
+    private void writeRecords(FileChannel channel, List<NotionPage> pages) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        CRC32 crc = new CRC32();
+        ByteBuffer recordHeader = ByteBuffer.allocate(8);
+
+        for (NotionPage page : pages) {
+            record.reset();
+            NotionPageBinaryCodec.write(recordOut, page);
+            recordOut.flush();
+
+            byte[] payload = record.toByteArray();
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+
+            recordHeader.clear();
+            recordHeader.putInt(payload.length).putInt((int)crc.getValue()).flip();
+            writeFully(channel, recordHeader);
+            writeFully(channel, ByteBuffer.wrap(payload));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
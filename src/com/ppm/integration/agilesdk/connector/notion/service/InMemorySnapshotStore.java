@@ -0,0 +1,39 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the snapshots of the most recently synced databases in memory. Least recently used snapshots are dropped once the max number of snapshots is reached.
+ */
+public class InMemorySnapshotStore implements SnapshotStore {
+
+    private final Map<String, DatabaseSnapshot> snapshots;
+
+    public InMemorySnapshotStore(final int maxSnapshots) {
+        this.snapshots = new LinkedHashMap<String, DatabaseSnapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DatabaseSnapshot> eldest) {
+                return size() > maxSnapshots;
+            }
+        };
+    }
+
+    @Override
+    public synchronized DatabaseSnapshot load(String key) {
+        return snapshots.get(key);
+    }
+
+    @Override
+    public synchronized void save(String key, DatabaseSnapshot snapshot, List<NotionPage> changedRows) {
+        snapshots.put(key, snapshot);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        snapshots.remove(key);
+    }
+}
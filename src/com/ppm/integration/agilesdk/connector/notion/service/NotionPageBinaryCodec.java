@@ -0,0 +1,258 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage.PropertyValue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of Notion pages, used to store snapshots on disk.
+ *
+ * Only the attributes read by the connector are stored. Strings are stored as a length (-1 for null) followed by UTF-8 bytes,
+ * and arrays as a count (-1 for null) followed by their elements, so pages can be decoded straight from a buffer without any JSON parsing.
+ *
+ * Any change to the encoding must come with a new {@link FileSnapshotStore} format version.
+ */
+class NotionPageBinaryCodec {
+
+    private NotionPageBinaryCodec() {
+    }
+
+    static void write(DataOutputStream out, NotionPage page) throws IOException {
+        writeString(out, page.object);
+        writeString(out, page.id);
+        writeString(out, page.created_time);
+        writeString(out, page.last_edited_time);
+
+        if (page.properties == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(page.properties.size());
+        for (Map.Entry<String, PropertyValue> property : page.properties.entrySet()) {
+            writeString(out, property.getKey());
+            writePropertyValue(out, property.getValue());
+        }
+    }
+
+    static NotionPage read(ByteBuffer in) throws IOException {
+        try {
+            NotionPage page = new NotionPage();
+            page.object = readString(in);
+            page.id = readString(in);
+            page.created_time = readString(in);
+            page.last_edited_time = readString(in);
+
+            int propertiesCount = in.getInt();
+            if (propertiesCount >= 0) {
+                page.properties = new LinkedHashMap<>(propertiesCount * 4 / 3 + 1);
+                for (int i = 0; i < propertiesCount; i++) {
+                    String name = readString(in);
+                    page.properties.put(name, readPropertyValue(in));
+                }
+            }
+
+            return page;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupted Notion page record", e);
+        }
+    }
+
+    private static void writePropertyValue(DataOutputStream out, PropertyValue value) throws IOException {
+        writeString(out, value.id);
+        writeString(out, value.name);
+        writeString(out, value.type);
+        writeString(out, value.email);
+
+        if (value.number == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeDouble(value.number);
+        }
+
+        if (value.multi_select == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.multi_select.length);
+            for (PropertyValue.Option option : value.multi_select) {
+                writeOption(out, option);
+            }
+        }
+
+        out.writeBoolean(value.select != null);
+        if (value.select != null) {
+            writeOption(out, value.select);
+        }
+
+        writeRichTexts(out, value.rich_text);
+        writeRichTexts(out, value.title);
+
+        if (value.people == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.people.length);
+            for (PropertyValue.People people : value.people) {
+                writeString(out, people.id);
+                writeString(out, people.name);
+                writeString(out, people.getEmail());
+            }
+        }
+
+        if (value.relation == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.relation.length);
+            for (PropertyValue.Relation relation : value.relation) {
+                writeString(out, relation.id);
+            }
+        }
+
+        out.writeBoolean(value.date != null);
+        if (value.date != null) {
+            writeString(out, value.date.start);
+            writeString(out, value.date.end);
+        }
+
+        writeString(out, value.created_time);
+        writeString(out, value.last_edited_time);
+    }
+
+    private static PropertyValue readPropertyValue(ByteBuffer in) {
+        PropertyValue value = new PropertyValue();
+        value.id = readString(in);
+        value.name = readString(in);
+        value.type = readString(in);
+        value.email = readString(in);
+
+        if (readBoolean(in)) {
+            value.number = in.getDouble();
+        }
+
+        int multiSelectCount = in.getInt();
+        if (multiSelectCount >= 0) {
+            value.multi_select = new PropertyValue.Option[multiSelectCount];
+            for (int i = 0; i < multiSelectCount; i++) {
+                value.multi_select[i] = readOption(in);
+            }
+        }
+
+        if (readBoolean(in)) {
+            value.select = readOption(in);
+        }
+
+        value.rich_text = readRichTexts(in);
+        value.title = readRichTexts(in);
+
+        int peopleCount = in.getInt();
+        if (peopleCount >= 0) {
+            value.people = new PropertyValue.People[peopleCount];
+            for (int i = 0; i < peopleCount; i++) {
+                PropertyValue.People people = new PropertyValue.People();
+                people.id = readString(in);
+                people.name = readString(in);
+                String email = readString(in);
+                if (email != null) {
+                    people.person = new PropertyValue.People.Person();
+                    people.person.email = email;
+                }
+                value.people[i] = people;
+            }
+        }
+
+        int relationsCount = in.getInt();
+        if (relationsCount >= 0) {
+            value.relation = new PropertyValue.Relation[relationsCount];
+            for (int i = 0; i < relationsCount; i++) {
+                value.relation[i] = new PropertyValue.Relation();
+                value.relation[i].id = readString(in);
+            }
+        }
+
+        if (readBoolean(in)) {
+            value.date = new PropertyValue.DateRange();
+            value.date.start = readString(in);
+            value.date.end = readString(in);
+        }
+
+        value.created_time = readString(in);
+        value.last_edited_time = readString(in);
+
+        return value;
+    }
+
+    private static void writeOption(DataOutputStream out, PropertyValue.Option option) throws IOException {
+        writeString(out, option.id);
+        writeString(out, option.name);
+        writeString(out, option.color);
+    }
+
+    private static PropertyValue.Option readOption(ByteBuffer in) {
+        PropertyValue.Option option = new PropertyValue.Option();
+        option.id = readString(in);
+        option.name = readString(in);
+        option.color = readString(in);
+        return option;
+    }
+
+    private static void writeRichTexts(DataOutputStream out, PropertyValue.RichText[] richTexts) throws IOException {
+        if (richTexts == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(richTexts.length);
+        for (PropertyValue.RichText richText : richTexts) {
+            writeString(out, richText.type);
+            writeString(out, richText.plain_text);
+        }
+    }
+
+    private static PropertyValue.RichText[] readRichTexts(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        PropertyValue.RichText[] richTexts = new PropertyValue.RichText[count];
+        for (int i = 0; i < count; i++) {
+            PropertyValue.RichText richText = new PropertyValue.RichText();
+            richText.type = readString(in);
+            richText.plain_text = readString(in);
+            richTexts[i] = richText;
+        }
+        return richTexts;
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds remaining bytes");
+        }
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+}
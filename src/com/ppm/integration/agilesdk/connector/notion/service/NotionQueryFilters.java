@@ -0,0 +1,222 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ppm.integration.agilesdk.ValueSet;
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionDatabase;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns the rows filter of a work plan mapping into a Notion database query filter, so that excluded rows are never sent by Notion.
+ *
+ * The filter value depends on the type of the filter property:
+ * <ul>
+ *     <li>select, status: one or more comma separated option names; rows with any of these options are kept.</li>
+ *     <li>multi_select: one or more comma separated option names; rows having any of these options are kept.</li>
+ *     <li>checkbox: "true" or "false".</li>
+ *     <li>date, created_time, last_edited_time: a window "yyyy-MM-dd..yyyy-MM-dd" where either bound can be omitted, or one of the
+ *     relative windows supported by Notion (past_week, past_month, past_year, this_week, next_week, next_month, next_year).</li>
+ * </ul>
+ * Rows with an empty name can also be excluded, as it's common to have empty lines at the end of a Notion database.
+ */
+public class NotionQueryFilters {
+
+    private final static Logger logger = Logger.getLogger(NotionQueryFilters.class);
+
+    private static final Set<String> RELATIVE_DATE_WINDOWS = new HashSet<>(Arrays.asList(
+            "past_week", "past_month", "past_year", "this_week", "next_week", "next_month", "next_year"));
+
+    private NotionQueryFilters() {
+    }
+
+    /**
+     * @return the Notion filter JSON of the rows filter defined in the config, or null if all rows must be retrieved.
+     */
+    public static String fromConfig(ValueSet config, NotionDatabase db) {
+        List<JsonObject> conditions = new ArrayList<>(2);
+
+        if ("true".equals(config.get(NotionConstants.KEY_WP_SKIP_EMPTY_NAME))) {
+            NotionDatabase.Property nameProperty = getProperty(db, config.get(NotionConstants.KEY_TMF_TASK_NAME));
+            if (nameProperty != null && ("title".equals(nameProperty.type) || "rich_text".equals(nameProperty.type))) {
+                conditions.add(propertyCondition(nameProperty, "is_not_empty", true));
+            }
+        }
+
+        String filterPropertyId = config.get(NotionConstants.KEY_WP_FILTER_PROPERTY);
+        String filterValue = config.get(NotionConstants.KEY_WP_FILTER_VALUE);
+
+        if (!StringUtils.isBlank(filterPropertyId) && !StringUtils.isBlank(filterValue)) {
+            if (filterPropertyId.endsWith(NotionConstants.END_DATE_SUFFIX)) {
+                filterPropertyId = filterPropertyId.substring(0, filterPropertyId.length() - NotionConstants.END_DATE_SUFFIX.length());
+            }
+
+            NotionDatabase.Property filterProperty = getProperty(db, filterPropertyId);
+            if (filterProperty == null) {
+                logger.error("Property " + filterPropertyId + " used to filter rows doesn't exist in Notion database " + db.getId() + ", rows are not filtered");
+            } else {
+                JsonObject condition = compileCondition(filterProperty, filterValue.trim());
+                if (condition != null && condition.size() == 1 && condition.has("and")) {
+                    // Notion only allows two levels of nested filters, so we don't nest "and" filters.
+                    condition.getAsJsonArray("and").forEach(c -> conditions.add(c.getAsJsonObject()));
+                } else if (condition != null) {
+                    conditions.add(condition);
+                }
+            }
+        }
+
+        return and(conditions);
+    }
+
+    /**
+     * @return the filter matching both filters, any of which can be null.
+     * Conditions of "and" filters are merged into a single "and", as Notion only allows two levels of nested filters.
+     */
+    public static String and(String filterJson, String otherFilterJson) {
+        if (filterJson == null) {
+            return otherFilterJson;
+        }
+        if (otherFilterJson == null) {
+            return filterJson;
+        }
+
+        JsonArray conditions = new JsonArray();
+        for (String json : new String[] {filterJson, otherFilterJson}) {
+            JsonObject filter = JsonParser.parseString(json).getAsJsonObject();
+            if (filter.size() == 1 && filter.has("and")) {
+                conditions.addAll(filter.getAsJsonArray("and"));
+            } else {
+                conditions.add(filter);
+            }
+        }
+
+        JsonObject combined = new JsonObject();
+        combined.add("and", conditions);
+        return combined.toString();
+    }
+
+    private static JsonObject compileCondition(NotionDatabase.Property property, String value) {
+        switch (property.type) {
+            case "select":
+            case "status":
+                return anyOf(property, "equals", value);
+            case "multi_select":
+                return anyOf(property, "contains", value);
+            case "checkbox":
+                return propertyCondition(property, "equals", Boolean.parseBoolean(value));
+            case "date":
+            case "created_time":
+            case "last_edited_time":
+                return dateWindow(property, value);
+            default:
+                logger.error("Cannot filter rows on property " + property.name + " of type " + property.type + ", rows are not filtered");
+                return null;
+        }
+    }
+
+    private static JsonObject anyOf(NotionDatabase.Property property, String operator, String values) {
+        List<JsonObject> conditions = new ArrayList<>();
+        for (String value : StringUtils.split(values, ",")) {
+            if (!StringUtils.isBlank(value)) {
+                JsonObject condition = new JsonObject();
+                condition.addProperty("property", property.id);
+                JsonObject operation = new JsonObject();
+                operation.addProperty(operator, value.trim());
+                condition.add(property.type, operation);
+                conditions.add(condition);
+            }
+        }
+        return combine("or", conditions);
+    }
+
+    private static JsonObject dateWindow(NotionDatabase.Property property, String window) {
+        JsonObject operation = new JsonObject();
+
+        if (RELATIVE_DATE_WINDOWS.contains(window)) {
+            operation.add(window, new JsonObject());
+            return propertyCondition(property, operation);
+        }
+
+        String[] bounds = window.split("\\.\\.", -1);
+        if (bounds.length > 2) {
+            logger.error("Invalid date window " + window + " to filter rows, rows are not filtered");
+            return null;
+        }
+
+        List<JsonObject> conditions = new ArrayList<>(2);
+        try {
+            if (!StringUtils.isBlank(bounds[0])) {
+                conditions.add(propertyCondition(property, "on_or_after", LocalDate.parse(bounds[0].trim()).toString()));
+            }
+            if (bounds.length == 1) {
+                // Single day.
+                conditions.add(propertyCondition(property, "on_or_before", LocalDate.parse(bounds[0].trim()).toString()));
+            } else if (!StringUtils.isBlank(bounds[1])) {
+                conditions.add(propertyCondition(property, "on_or_before", LocalDate.parse(bounds[1].trim()).toString()));
+            }
+        } catch (DateTimeParseException e) {
+            logger.error("Invalid date window " + window + " to filter rows, rows are not filtered: " + e.getMessage());
+            return null;
+        }
+
+        return combine("and", conditions);
+    }
+
+    private static JsonObject propertyCondition(NotionDatabase.Property property, String operator, Object value) {
+        JsonObject operation = new JsonObject();
+        if (value instanceof Boolean) {
+            operation.addProperty(operator, (Boolean)value);
+        } else {
+            operation.addProperty(operator, String.valueOf(value));
+        }
+        return propertyCondition(property, operation);
+    }
+
+    private static JsonObject propertyCondition(NotionDatabase.Property property, JsonObject operation) {
+        JsonObject condition = new JsonObject();
+        condition.addProperty("property", property.id);
+        condition.add(property.type, operation);
+        return condition;
+    }
+
+    private static JsonObject combine(String operator, List<JsonObject> conditions) {
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        JsonArray array = new JsonArray();
+        conditions.forEach(array::add);
+        JsonObject combined = new JsonObject();
+        combined.add(operator, array);
+        return combined;
+    }
+
+    private static String and(List<JsonObject> conditions) {
+        JsonObject filter = combine("and", conditions);
+        return filter == null ? null : filter.toString();
+    }
+
+    private static NotionDatabase.Property getProperty(NotionDatabase db, String propertyId) {
+        if (db == null || db.properties == null || StringUtils.isBlank(propertyId)) {
+            return null;
+        }
+        for (NotionDatabase.Property property : db.properties.values()) {
+            if (propertyId.equals(property.id)) {
+                return property;
+            }
+        }
+        return null;
+    }
+}
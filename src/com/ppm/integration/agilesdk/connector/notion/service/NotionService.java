@@ -1,48 +1,102 @@
 package com.ppm.integration.agilesdk.connector.notion.service;
 
-import com.google.gson.*;
-import com.ppm.integration.agilesdk.ValueSet;
 import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import com.ppm.integration.agilesdk.connector.notion.json.NotionGson;
+import com.ppm.integration.agilesdk.connector.notion.json.PaginatedResponseReader;
+import com.ppm.integration.agilesdk.connector.notion.metrics.NotionMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncTrace;
+import com.ppm.integration.agilesdk.connector.notion.metrics.TraceSpan;
 import com.ppm.integration.agilesdk.connector.notion.model.*;
+import com.ppm.integration.agilesdk.connector.notion.rest.NotionExecutors;
 import com.ppm.integration.agilesdk.connector.notion.rest.NotionRestClient;
 import com.ppm.integration.agilesdk.connector.notion.rest.NotionRestConfig;
+import com.ppm.integration.agilesdk.connector.notion.rest.RetryBudget;
+import com.ppm.integration.agilesdk.connector.notion.rest.RetryPolicy;
 import okhttp3.OkHttpClient;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.apache.wink.client.ClientResponse;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
- * Class in charge of making calls to Notion REST API when needed. Contains a cache, so the service should not be a static member of a class, as the caches are never invalidated and might contain stale data if used as such.
+ * Class in charge of making calls to Notion REST API when needed.
  *
- * This class not thread safe.
+ * Databases schemas and the list of available databases are cached for the whole JVM, per integration token, for a limited time
+ * (see the cache system properties in {@link NotionConstants}). Cached objects are shared between threads and must not be modified.
+ *
+ * This class is thread safe: one instance per integration token is shared by all threads, see {@link NotionServiceProvider}.
  */
 public class NotionService {
 
     private final static Logger logger = Logger.getLogger(NotionService.class);
 
-    private NotionRestClient restClient;
+    private static final int PAGE_SIZE = 100;
+
+    private static final String DATABASE_ENDPOINT = NotionMetrics.endpointOf("GET", NotionConstants.API_GET_SINGLE_DB + "{id}");
+
+    private static final int CACHE_MAX_ENTRIES = Integer.getInteger(NotionConstants.SYSPROP_CACHE_MAX_ENTRIES, NotionConstants.DEFAULT_CACHE_MAX_ENTRIES);
+
+    /** Databases schemas, keyed by integration token hash and database ID. */
+    private static final ExpiringLruCache<String, NotionDatabase> dbCache = new ExpiringLruCache<>(CACHE_MAX_ENTRIES,
+            Long.getLong(NotionConstants.SYSPROP_CACHE_SCHEMA_TTL_SECONDS, NotionConstants.DEFAULT_CACHE_SCHEMA_TTL_SECONDS), TimeUnit.SECONDS);
+
+    /** Databases available to an integration, keyed by integration token hash. */
+    private static final ExpiringLruCache<String, List<NotionDatabase>> allAvailableDatabasesCache = new ExpiringLruCache<>(CACHE_MAX_ENTRIES,
+            Long.getLong(NotionConstants.SYSPROP_CACHE_SEARCH_TTL_SECONDS, NotionConstants.DEFAULT_CACHE_SEARCH_TTL_SECONDS), TimeUnit.SECONDS);
+
+    private static final boolean SCHEMA_REVALIDATION = !"false".equalsIgnoreCase(System.getProperty(NotionConstants.SYSPROP_CACHE_SCHEMA_REVALIDATION));
+
+    private static final long SCHEMA_MAX_AGE_SECONDS = Long.getLong(NotionConstants.SYSPROP_CACHE_SCHEMA_MAX_AGE_SECONDS, NotionConstants.DEFAULT_CACHE_SCHEMA_MAX_AGE_SECONDS);
+
+    /** Concurrent requests for the same schema or databases list, from any service instance, share a single Notion API call. */
+    private static final SingleFlight<String, NotionDatabase> dbLoads = new SingleFlight<>();
+
+    private static final SingleFlight<String, List<NotionDatabase>> allAvailableDatabasesLoads = new SingleFlight<>();
+
+    private final NotionRestClient restClient;
+
+    private final RetryPolicy retryPolicy = RetryPolicy.fromSystemProperties();
+
     public NotionService(NotionRestClient restClient) {
         this.restClient = restClient;
     }
 
-    private List<NotionDatabase> allAvailableDatabases = null;
+    public List<NotionDatabase> getAllAvailableDatabases() {
 
-    private Map<String, NotionDatabase> dbById = new HashMap<>();
+        String tokenHash = getTokenHash();
 
-    public List<NotionDatabase> getAllAvailableDatabases() {
+        List<NotionDatabase> allAvailableDatabases = allAvailableDatabasesCache.get(tokenHash);
 
-        if (allAvailableDatabases == null) {
+        if (allAvailableDatabases != null) {
+            NotionMetrics.get().recordCacheHit(NotionMetrics.CACHE_DATABASE_LIST);
+        } else {
+            NotionMetrics.get().recordCacheMiss(NotionMetrics.CACHE_DATABASE_LIST);
+            allAvailableDatabases = allAvailableDatabasesLoads.load(tokenHash, () -> {
+                // Another thread may have completed the same search right before we started ours.
+                List<NotionDatabase> cachedDbs = allAvailableDatabasesCache.get(tokenHash);
+                if (cachedDbs != null) {
+                    return cachedDbs;
+                }
 
-            String searchDatabasesPayload = "{\"filter\": {\"value\": \"database\", \"property\": \"object\"}, \"page_size\": 100}";
+                String searchDatabasesPayload = "{\"filter\": {\"value\": \"database\", \"property\": \"object\"}, \"page_size\": 100}";
 
-            List<NotionDatabase> results = runPaginatedPost(NotionConstants.API_SEARCH, searchDatabasesPayload, DatabaseSearchResponse.class, NotionDatabase.class);
+                List<NotionDatabase> results = Collections.unmodifiableList(
+                        runPaginatedPost(NotionConstants.API_SEARCH, searchDatabasesPayload, DatabaseSearchResponse.class, NotionDatabase.class, getRetryBudget()));
 
-            allAvailableDatabases = results;
+                results.stream().forEach(db -> {dbCache.put(getDbCacheKey(tokenHash, db.id), db);});
 
-            allAvailableDatabases.stream().forEach(db -> {dbById.put(db.id, db);});
+                allAvailableDatabasesCache.put(tokenHash, results);
+
+                return results;
+            });
         }
 
         return allAvailableDatabases;
@@ -50,19 +104,171 @@ public class NotionService {
 
     public NotionDatabase getNotionDatabase(String dbId) {
 
-        if (!dbById.containsKey(dbId)) {
+        String cacheKey = getDbCacheKey(getTokenHash(), dbId);
+
+        NotionDatabase db = dbCache.get(cacheKey);
+
+        if (db == null) {
+            db = revalidateExpiredDatabase(dbId, cacheKey);
+        }
+
+        if (db != null) {
+            NotionMetrics.get().recordCacheHit(NotionMetrics.CACHE_DATABASE_SCHEMA);
+        } else {
+            NotionMetrics.get().recordCacheMiss(NotionMetrics.CACHE_DATABASE_SCHEMA);
+            db = dbLoads.load(cacheKey, () -> {
+                NotionDatabase cachedDb = dbCache.get(cacheKey);
+                if (cachedDb != null) {
+                    return cachedDb;
+                }
+
+                ClientResponse response = restClient.sendGet(NotionConstants.API_GET_SINGLE_DB + dbId);
+
+                NotionDatabase loadedDb = readDatabase(response);
+
+                dbCache.put(cacheKey, loadedDb);
 
-            ClientResponse response = restClient.sendGet(NotionConstants.API_GET_SINGLE_DB + dbId);
+                return loadedDb;
+            });
+        }
+
+        return db;
+    }
+
+    /**
+     * Asynchronous version of {@link #getNotionDatabase(String)}, to retrieve several database schemas at once.
+     */
+    public CompletableFuture<NotionDatabase> getNotionDatabaseAsync(String dbId) {
+        String cacheKey = getDbCacheKey(getTokenHash(), dbId);
+
+        NotionDatabase cachedDb = dbCache.get(cacheKey);
+        if (cachedDb != null) {
+            NotionMetrics.get().recordCacheHit(NotionMetrics.CACHE_DATABASE_SCHEMA);
+            return CompletableFuture.completedFuture(cachedDb);
+        }
+
+        if (SCHEMA_REVALIDATION && dbCache.getExpired(cacheKey, SCHEMA_MAX_AGE_SECONDS, TimeUnit.SECONDS) != null) {
+            // Revalidation relies on the databases listing, which is retrieved synchronously.
+            return CompletableFuture.supplyAsync(SyncMetrics.bindToCurrent(() -> getNotionDatabase(dbId)), NotionExecutors.requestExecutor());
+        }
+
+        NotionMetrics.get().recordCacheMiss(NotionMetrics.CACHE_DATABASE_SCHEMA);
+        return dbLoads.loadAsync(cacheKey, () -> restClient.sendGetAsync(NotionConstants.API_GET_SINGLE_DB + dbId, response -> {
+            NotionDatabase db = readDatabase(response);
+            dbCache.put(cacheKey, db);
+            return db;
+        }));
+    }
+
+    /**
+     * When a cached schema has expired, we check the last_edited_time of the database in the databases listing, which covers all databases
+     * in one (usually cached) search: if the database was not edited since the schema was retrieved, the cached schema is kept for another TTL.
+     * Notion edit times are truncated to the minute, so a schema is always retrieved again once older than {@link NotionConstants#SYSPROP_CACHE_SCHEMA_MAX_AGE_SECONDS}.
+     *
+     * @return the still valid schema, or null if it must be retrieved again.
+     */
+    private NotionDatabase revalidateExpiredDatabase(String dbId, String cacheKey) {
+        if (!SCHEMA_REVALIDATION) {
+            return null;
+        }
+
+        NotionDatabase expiredDb = dbCache.getExpired(cacheKey, SCHEMA_MAX_AGE_SECONDS, TimeUnit.SECONDS);
+        if (expiredDb == null || expiredDb.last_edited_time == null) {
+            return null;
+        }
 
-            NotionDatabase db = new Gson().fromJson(response.getEntity(String.class), NotionDatabase.class);
+        List<NotionDatabase> allAvailableDatabases = getAllAvailableDatabases();
 
-            dbById.put(db.id, db);
+        // A new search also refreshes the cached schemas.
+        NotionDatabase db = dbCache.get(cacheKey);
+        if (db != null) {
+            return db;
+        }
+
+        for (NotionDatabase listedDb : allAvailableDatabases) {
+            if (dbId.equals(listedDb.id)) {
+                if (expiredDb.last_edited_time.equals(listedDb.last_edited_time)) {
+                    dbCache.renew(cacheKey, expiredDb);
+                    return expiredDb;
+                }
+                return null;
+            }
         }
 
-        return dbById.get(dbId);
+        return null;
+    }
+
+    private String getTokenHash() {
+        return NotionRestConfig.hashToken(restClient.getIntegrationToken());
+    }
+
+    private static String getDbCacheKey(String tokenHash, String dbId) {
+        return tokenHash + ":" + dbId;
+    }
+
+    private NotionDatabase readDatabase(ClientResponse response) {
+        long startNanos = System.nanoTime();
+        TraceSpan span = SyncTrace.startCurrentSpan(SyncMetrics.Phase.PARSE.getLabel());
+        String json = response.getEntity(String.class);
+        long bytes = NotionMetrics.utf8Length(json);
+        NotionMetrics.get().recordResponseBytes(DATABASE_ENDPOINT, bytes);
+        try {
+            return NotionGson.get().fromJson(json, NotionDatabase.class);
+        } finally {
+            SyncMetrics.addToCurrent(SyncMetrics.Phase.PARSE, System.nanoTime() - startNanos);
+            if (span != null) {
+                span.tag("endpoint", DATABASE_ENDPOINT).tag("bytes", bytes).end();
+            }
+        }
     }
 
     public List<NotionPage> getAllPages(String dbId, String sortByFieldId) {
+        return getAllPages(dbId, sortByFieldId, null, null);
+    }
+
+    /**
+     * @param projectedPropertyIds ids of the properties to retrieve, or null to retrieve all properties.
+     * @param rowsFilterJson a Notion query filter object (see {@link NotionQueryFilters}), or null to retrieve all rows.
+     */
+    public List<NotionPage> getAllPages(String dbId, String sortByFieldId, Set<String> projectedPropertyIds, String rowsFilterJson) {
+        List<NotionPage> results = new ArrayList<>();
+        forEachPage(dbId, sortByFieldId, projectedPropertyIds, rowsFilterJson, results::add);
+        return results;
+    }
+
+    /**
+     * Streams all the pages (rows) of the database to the consumer, one page at a time as they're read from Notion responses.
+     */
+    public void forEachPage(String dbId, String sortByFieldId, Consumer<NotionPage> pageConsumer) {
+        forEachPage(dbId, sortByFieldId, null, null, pageConsumer);
+    }
+
+    /**
+     * Streams the pages (rows) of the database with only the given properties. Notion is asked to only return these properties,
+     * and any other property is skipped when reading the response. Rows excluded by the filter are not sent by Notion.
+     *
+     * @param projectedPropertyIds ids of the properties to retrieve, or null to retrieve all properties.
+     * @param rowsFilterJson a Notion query filter object (see {@link NotionQueryFilters}), or null to retrieve all rows.
+     */
+    public void forEachPage(String dbId, String sortByFieldId, Set<String> projectedPropertyIds, String rowsFilterJson, Consumer<NotionPage> pageConsumer) {
+        try (PipelinedPaginator<NotionPage, PagesQueryResponse> pages = iteratePages(dbId, sortByFieldId, projectedPropertyIds, rowsFilterJson)) {
+            pages.forEachRemaining(pageConsumer);
+        }
+    }
+
+    /**
+     * @return an iterator over all the pages (rows) of the database. Next pages of results are fetched in the background while the current ones are processed.
+     * The iterator must be closed if not read until the end.
+     */
+    public PipelinedPaginator<NotionPage, PagesQueryResponse> iteratePages(String dbId, String sortByFieldId) {
+        return iteratePages(dbId, sortByFieldId, null, null);
+    }
+
+    /**
+     * @param projectedPropertyIds ids of the properties to retrieve, or null to retrieve all properties.
+     * @param filterJson a Notion query filter object, or null to retrieve all rows.
+     */
+    private PipelinedPaginator<NotionPage, PagesQueryResponse> iteratePages(String dbId, String sortByFieldId, Set<String> projectedPropertyIds, String filterJson) {
         // No caching here as it is called only when sync work plan
         StringBuilder getPagesPayload = new StringBuilder("{\"page_size\": 100");
 
@@ -75,53 +281,144 @@ public class NotionService {
                     "\t  ]");
         }
 
+        if (filterJson != null) {
+            getPagesPayload.append(", \"filter\": ").append(filterJson);
+        }
+
         getPagesPayload.append("}");
 
-        List<NotionPage> results = runPaginatedPost(NotionConstants.API_GET_SINGLE_DB + dbId + "/query", getPagesPayload.toString(), PagesQueryResponse.class, NotionPage.class);
+        PaginatedResponseReader<NotionPage, PagesQueryResponse> responseReader = new PaginatedResponseReader<>(PagesQueryResponse.class, NotionGson.getPageAdapter(projectedPropertyIds));
 
-        return results;
+        return paginate(getQueryUrl(dbId, projectedPropertyIds), getPagesPayload.toString(), responseReader, getRetryBudget());
     }
 
-    private <T extends NotionObject, P extends PaginatedResponse> List<T> runPaginatedPost(String url, String nonPaginatedJsonPayload, Class<P> paginatedResponseType, Class<T> resultType) {
-        boolean hasMoreResults = false;
-        String nextCursor = null;
+    /**
+     * With a projection, the properties to return are passed in filter_properties query parameters.
+     */
+    private String getQueryUrl(String dbId, Set<String> projectedPropertyIds) {
+        StringBuilder url = new StringBuilder(NotionConstants.API_GET_SINGLE_DB).append(dbId).append("/query");
+
+        if (projectedPropertyIds != null) {
+            char separator = '?';
+            for (String propertyId : projectedPropertyIds) {
+                url.append(separator).append("filter_properties=").append(encodePropertyId(propertyId));
+                separator = '&';
+            }
+        }
 
-        List<T> results = new ArrayList<>();
+        return url.toString();
+    }
 
-        do {
-            String jsonPayload = nonPaginatedJsonPayload;
-            if (nextCursor != null) {
-                JsonObject payload = JsonParser.parseString(nonPaginatedJsonPayload).getAsJsonObject();
-                payload.add("start_cursor", new JsonPrimitive(nextCursor));
-                jsonPayload = payload.toString();
-            }
+    /**
+     * Notion property ids are already URL-encoded when needed (e.g. "%3AUPp"), so they're used as is unless they contain other characters.
+     */
+    private static String encodePropertyId(String propertyId) {
+        if (propertyId.matches("[A-Za-z0-9%._~-]+")) {
+            return propertyId;
+        }
+        try {
+            return URLEncoder.encode(propertyId, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-            ClientResponse response = restClient.sendPost(url, jsonPayload, 200);
+    /**
+     * Incremental version of {@link #getAllPages(String, String)}: if the database was already synced, only the rows modified since the last sync are retrieved
+     * from Notion and merged into the rows of the last sync.
+     *
+     * Rows deleted or archived in Notion, rows that no longer match the rows filter, as well as changes in rows order, are only picked up by a full sync. A full sync is done when there's no snapshot
+     * of the last sync, when the query changed, or when the last full sync is older than {@link NotionConstants#SYSPROP_SYNC_FULL_RESYNC_HOURS}.
+     */
+    public List<NotionPage> getAllPagesIncremental(String dbId, String sortByFieldId) {
+        return getAllPagesIncremental(dbId, sortByFieldId, null, null);
+    }
 
-            P responseObject = new Gson().fromJson(response.getEntity(String.class), paginatedResponseType);
+    /**
+     * @param projectedPropertyIds ids of the properties to retrieve, or null to retrieve all properties.
+     * @param rowsFilterJson a Notion query filter object (see {@link NotionQueryFilters}), or null to retrieve all rows.
+     */
+    public List<NotionPage> getAllPagesIncremental(String dbId, String sortByFieldId, Set<String> projectedPropertyIds, String rowsFilterJson) {
+        SnapshotStore snapshotStore = SnapshotStores.getDefault();
+        String snapshotKey = getSnapshotKey(dbId);
+        // Rows of a snapshot only have the projected properties, so a different projection requires a full sync.
+        String querySignature = "sort=" + StringUtils.defaultString(sortByFieldId)
+                + (projectedPropertyIds == null ? "" : ";properties=" + String.join(",", new TreeSet<>(projectedPropertyIds)))
+                + (rowsFilterJson == null ? "" : ";filter=" + rowsFilterJson);
+
+        long now = System.currentTimeMillis();
+        long fullResyncPeriodMs = TimeUnit.HOURS.toMillis(Long.getLong(NotionConstants.SYSPROP_SYNC_FULL_RESYNC_HOURS, NotionConstants.DEFAULT_SYNC_FULL_RESYNC_HOURS));
+
+        DatabaseSnapshot previous = snapshotStore.load(snapshotKey);
+
+        if (previous == null || previous.getWatermark() == null || !querySignature.equals(previous.getQuerySignature())
+                || now - previous.getLastFullSyncTime() > fullResyncPeriodMs) {
+            List<NotionPage> rows = getAllPages(dbId, sortByFieldId, projectedPropertyIds, rowsFilterJson);
+            // We keep the schema with the rows if we already have it, so that next incremental sync doesn't need to retrieve it.
+            snapshotStore.save(snapshotKey, new DatabaseSnapshot(querySignature, rows, now, dbCache.get(getDbCacheKey(getTokenHash(), dbId))), null);
+            return rows;
+        }
 
-            results.addAll(Arrays.asList(responseObject.getResults()));
+        List<NotionPage> changedRows = new ArrayList<>();
+        try (PipelinedPaginator<NotionPage, PagesQueryResponse> pages = iteratePages(dbId, sortByFieldId, projectedPropertyIds,
+                NotionQueryFilters.and(rowsFilterJson, getModifiedSinceFilter(dbId, previous)))) {
+            pages.forEachRemaining(changedRows::add);
+        }
 
-            hasMoreResults = responseObject.has_more;
-            nextCursor = responseObject.next_cursor;
+        logger.debug("Incremental sync of Notion database " + dbId + ": " + changedRows.size() + " rows modified since " + previous.getWatermark());
 
-        } while (hasMoreResults);
+        DatabaseSnapshot merged = previous.mergeChanges(changedRows);
+        snapshotStore.save(snapshotKey, merged, changedRows);
 
-        return results;
+        return merged.getRows();
+    }
 
+    /**
+     * Notion timestamps are truncated to the minute, so we include rows modified in the same minute as the watermark; they're simply merged again.
+     * We filter on a "last edited time" property of the database if there's one, as this works with all versions of Notion API. Otherwise, we use a timestamp filter.
+     */
+    private String getModifiedSinceFilter(String dbId, DatabaseSnapshot previous) {
+        String quotedWatermark = NotionGson.get().toJson(previous.getWatermark());
+
+        NotionDatabase db = previous.getSchema() != null ? previous.getSchema() : getNotionDatabase(dbId);
+        if (db != null && db.properties != null) {
+            for (NotionDatabase.Property property : db.properties.values()) {
+                if ("last_edited_time".equals(property.type)) {
+                    return "{\"property\": " + NotionGson.get().toJson(property.id) + ", \"last_edited_time\": {\"on_or_after\": " + quotedWatermark + "}}";
+                }
+            }
+        }
+
+        return "{\"timestamp\": \"last_edited_time\", \"last_edited_time\": {\"on_or_after\": " + quotedWatermark + "}}";
     }
 
-    public synchronized void refreshRestConfigIfNeeded(ValueSet config) {
-        String currentIntegrationToken = restClient.getIntegrationToken();
-        String configIntegrationToken = NotionServiceProvider.getIntegrationToken(config);
+    private String getSnapshotKey(String dbId) {
+        return getDbCacheKey(getTokenHash(), dbId);
+    }
 
-        if (!currentIntegrationToken.equals(configIntegrationToken)) {
-            // We should use a different Integration Token - Let's reset the REST client and clear all caches.
-            NotionRestConfig restConfig = this.restClient.getNotionRestConfig();
-            restConfig.setAuthToken(configIntegrationToken);
-            this.restClient = new NotionRestClient(restConfig);
-            this.allAvailableDatabases = null;
-            this.dbById.clear();
+    /**
+     * @return the retry budget shared by all the requests of the current sync, or a new budget for one paginated listing made outside of a sync.
+     */
+    private RetryBudget getRetryBudget() {
+        return RetryBudget.ofCurrentSyncOr(new RetryBudget(Integer.getInteger(NotionConstants.SYSPROP_API_SYNC_RETRY_BUDGET, NotionConstants.DEFAULT_API_SYNC_RETRY_BUDGET)));
+    }
+
+    /**
+     * Retrieves all the pages of results in a list.
+     */
+    private <T extends NotionObject, P extends PaginatedResponse> List<T> runPaginatedPost(String url, String nonPaginatedJsonPayload, Class<P> paginatedResponseType, Class<T> resultType, RetryBudget retryBudget) {
+        List<T> results = new ArrayList<>();
+        try (PipelinedPaginator<T, P> paginator = paginate(url, nonPaginatedJsonPayload, paginatedResponseType, resultType, retryBudget)) {
+            paginator.forEachRemaining(results::add);
         }
+        return results;
+    }
+
+    private <T extends NotionObject, P extends PaginatedResponse> PipelinedPaginator<T, P> paginate(String url, String nonPaginatedJsonPayload, Class<P> paginatedResponseType, Class<T> resultType, RetryBudget retryBudget) {
+        return paginate(url, nonPaginatedJsonPayload, new PaginatedResponseReader<>(NotionGson.get(), paginatedResponseType, resultType), retryBudget);
+    }
+
+    private <T extends NotionObject, P extends PaginatedResponse> PipelinedPaginator<T, P> paginate(String url, String nonPaginatedJsonPayload, PaginatedResponseReader<T, P> responseReader, RetryBudget retryBudget) {
+        return new PipelinedPaginator<>(restClient, url, nonPaginatedJsonPayload, responseReader, retryBudget, retryPolicy, PAGE_SIZE).start();
     }
 }
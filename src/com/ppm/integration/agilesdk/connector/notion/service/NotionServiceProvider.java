@@ -13,8 +13,45 @@ import com.ppm.integration.agilesdk.provider.Providers;
 import com.ppm.integration.agilesdk.provider.UserProvider;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the Notion services of this JVM, one per integration token and proxy.
+ *
+ * Services are thread safe and only hold the REST client for their token, so they can be shared by all syncs and configuration screens
+ * using the same token.
+ *
+ * The registry is bounded, so that mistyped, rotated or revoked tokens are not kept for the life of the JVM: services are created again
+ * after {@value NotionConstants#SYSPROP_SERVICES_TTL_MINUTES}, and when a service is added beyond {@value NotionConstants#SYSPROP_SERVICES_MAX_ENTRIES},
+ * the oldest ones are evicted. Evicting a service in use is harmless, as rate limiters and HTTP connection pools are not held by the services.
+ *
+ * Looking up an existing service takes no lock; expired services are removed by the lookup, and the size bound is only enforced when a service is added.
+ */
 public class NotionServiceProvider {
 
+    private static final int MAX_ENTRIES = Math.max(1, Integer.getInteger(NotionConstants.SYSPROP_SERVICES_MAX_ENTRIES, NotionConstants.DEFAULT_SERVICES_MAX_ENTRIES));
+
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(
+            Math.max(1L, Long.getLong(NotionConstants.SYSPROP_SERVICES_TTL_MINUTES, NotionConstants.DEFAULT_SERVICES_TTL_MINUTES)));
+
+    private static final ConcurrentMap<String, ServiceEntry> services = new ConcurrentHashMap<>();
+
+    private static final class ServiceEntry {
+        private final NotionService service;
+        private final long createdNanos = System.nanoTime();
+
+        private ServiceEntry(NotionService service) {
+            this.service = service;
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdNanos > TTL_NANOS;
+        }
+    }
+
     public static UserProvider getUserProvider() {
         return Providers.getUserProvider(NotionIntegrationConnector.class);
     }
@@ -22,18 +59,74 @@ public class NotionServiceProvider {
     public static NotionService get(ValueSet config) {
 
         String proxyHost = config.get(NotionConstants.KEY_PROXY_HOST);
-
-        NotionRestConfig restConfig = new NotionRestConfig();
+        String proxyPort = null;
 
         if (!StringUtils.isBlank(proxyHost)) {
-            String proxyPort = config.get(NotionConstants.KEY_PROXY_PORT);
+            proxyPort = config.get(NotionConstants.KEY_PROXY_PORT);
             if (StringUtils.isBlank(proxyPort)) {
                 proxyPort = "80";
             }
+        }
+
+        final String integrationToken = getIntegrationToken(config);
+        final String servicePort = proxyPort;
+
+        // The token is hashed so that it's not kept in clear as a map key.
+        String key = NotionRestConfig.hashToken(integrationToken) + "@" + StringUtils.defaultString(proxyHost) + ":" + StringUtils.defaultString(proxyPort);
+
+        ServiceEntry entry = services.get(key);
+
+        if (entry != null) {
+            if (!entry.isExpired(System.nanoTime())) {
+                return entry.service;
+            }
+            services.remove(key, entry);
+        }
+
+        // Only the lookups of this key wait while the service is created.
+        entry = services.computeIfAbsent(key, k -> new ServiceEntry(createService(proxyHost, servicePort, integrationToken)));
+
+        if (services.size() > MAX_ENTRIES) {
+            evictEntries();
+        }
+
+        return entry.service;
+    }
+
+    /**
+     * Removes the expired services, then the oldest ones until the registry is back to its max size.
+     * Concurrent lookups and additions may briefly leave a few more services than the max.
+     */
+    private static void evictEntries() {
+        long now = System.nanoTime();
+        services.forEach((key, entry) -> {
+            if (entry.isExpired(now)) {
+                services.remove(key, entry);
+            }
+        });
 
+        while (services.size() > MAX_ENTRIES) {
+            Map.Entry<String, ServiceEntry> oldest = null;
+            for (Map.Entry<String, ServiceEntry> e : services.entrySet()) {
+                if (oldest == null || e.getValue().createdNanos - oldest.getValue().createdNanos < 0) {
+                    oldest = e;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            services.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static NotionService createService(String proxyHost, String proxyPort, String integrationToken) {
+
+        NotionRestConfig restConfig = new NotionRestConfig();
+
+        if (!StringUtils.isBlank(proxyHost)) {
             restConfig.setProxy(proxyHost, proxyPort);
         }
-        restConfig.setAuthToken(getIntegrationToken(config));
+        restConfig.setAuthToken(integrationToken);
 
         return new NotionService(new NotionRestClient(restConfig));
     }
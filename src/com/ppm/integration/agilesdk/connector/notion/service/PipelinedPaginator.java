@@ -0,0 +1,270 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.json.PaginatedResponseReader;
+import com.ppm.integration.agilesdk.connector.notion.metrics.CountingInputStream;
+import com.ppm.integration.agilesdk.connector.notion.metrics.NotionMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncMetrics;
+import com.ppm.integration.agilesdk.connector.notion.metrics.SyncTrace;
+import com.ppm.integration.agilesdk.connector.notion.metrics.TraceSpan;
+import com.ppm.integration.agilesdk.connector.notion.model.NotionObject;
+import com.ppm.integration.agilesdk.connector.notion.model.PaginatedResponse;
+import com.ppm.integration.agilesdk.connector.notion.rest.NotionExecutors;
+import com.ppm.integration.agilesdk.connector.notion.rest.NotionRestClient;
+import com.ppm.integration.agilesdk.connector.notion.rest.RestRequestException;
+import com.ppm.integration.agilesdk.connector.notion.rest.RetryBudget;
+import com.ppm.integration.agilesdk.connector.notion.rest.RetryPolicy;
+import org.apache.log4j.Logger;
+import org.apache.wink.client.ClientResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Iterates over all the results of a paginated Notion search or query.
+ *
+ * Pages are fetched by a background thread: as soon as a page is read and its next_cursor is known, it's handed over to the caller and the next page is requested,
+ * so the caller processes page N while page N+1 is on the wire. At most {@link #PREFETCHED_PAGES} pages are buffered ahead of the caller.
+ *
+ * Search and query requests are read-only, so a page that fails with a transient error is requested again with the same start_cursor:
+ * the results already retrieved are kept and the listing resumes where it failed.
+ *
+ * Listings of a sync stop before their next page once the sync is cancelled, see {@link SyncMetrics#cancel()}.
+ *
+ * If all the prefetch threads are busy, pages are fetched by the caller, one at a time when it needs them.
+ *
+ * The paginator must be closed if it's not read until the end, to stop fetching pages.
+ */
+public class PipelinedPaginator<T extends NotionObject, P extends PaginatedResponse> implements Iterator<T>, AutoCloseable {
+
+    private final static Logger logger = Logger.getLogger(PipelinedPaginator.class);
+
+    private static final int PREFETCHED_PAGES = 2;
+
+    private final NotionRestClient restClient;
+
+    private final String url;
+
+    private final CursorPayloadTemplate payloadTemplate;
+
+    private final PaginatedResponseReader<T, P> responseReader;
+
+    private final RetryBudget retryBudget;
+
+    private final RetryPolicy retryPolicy;
+
+    private final int pageSize;
+
+    private final String endpoint;
+
+    /** Metrics of the sync reading the results, as pages are fetched in another thread. */
+    private final SyncMetrics syncMetrics = SyncMetrics.current();
+
+    private final BlockingQueue<FetchedPage<T>> fetchedPages = new ArrayBlockingQueue<>(PREFETCHED_PAGES);
+
+    /** Null if pages are fetched by the caller. */
+    private Future<?> fetcher;
+
+    /** Only used by the thread fetching pages. */
+    private String cursor = null;
+
+    private volatile boolean closed = false;
+
+    private Iterator<T> currentPage = Collections.emptyIterator();
+
+    private boolean lastPageReceived = false;
+
+    private static class FetchedPage<T> {
+        private final List<T> results;
+        private final boolean isLast;
+        private final Throwable error;
+
+        private FetchedPage(List<T> results, boolean isLast, Throwable error) {
+            this.results = results;
+            this.isLast = isLast;
+            this.error = error;
+        }
+    }
+
+    PipelinedPaginator(NotionRestClient restClient, String url, String nonPaginatedJsonPayload, PaginatedResponseReader<T, P> responseReader,
+                       RetryBudget retryBudget, RetryPolicy retryPolicy, int pageSize) {
+        this.restClient = restClient;
+        this.url = url;
+        this.payloadTemplate = new CursorPayloadTemplate(nonPaginatedJsonPayload);
+        this.responseReader = responseReader;
+        this.retryBudget = retryBudget;
+        this.retryPolicy = retryPolicy;
+        this.pageSize = pageSize;
+        this.endpoint = NotionMetrics.endpointOf("POST", url);
+    }
+
+    /**
+     * Starts fetching pages in the background. Called once, before the paginator is handed over to the caller.
+     */
+    PipelinedPaginator<T, P> start() {
+        try {
+            fetcher = NotionExecutors.prefetchExecutor().submit(syncMetrics == null ? this::fetchAllPages : syncMetrics.bind((Runnable)this::fetchAllPages));
+        } catch (RejectedExecutionException e) {
+            logger.debug("All prefetch threads are busy, results of " + url + " will be fetched without prefetching");
+        }
+        return this;
+    }
+
+    private void fetchAllPages() {
+        try {
+            while (!closed) {
+                FetchedPage<T> page = fetchNextPage();
+
+                fetchedPages.put(page);
+
+                if (page.isLast) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Paginator was closed while waiting for the caller to consume pages.
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            if (!closed) {
+                try {
+                    fetchedPages.put(new FetchedPage<>(null, true, t));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests the page at the current cursor, and moves the cursor to the next page.
+     */
+    private FetchedPage<T> fetchNextPage() {
+        int failedReads = 0;
+
+        while (true) {
+            checkNotCancelled();
+
+            // Results of a page are buffered until the page is fully read, so that a page failing halfway can be requested again without duplicates.
+            List<T> pageResults = new ArrayList<>(pageSize);
+            P response;
+
+            // Errors of the request itself are not retried here, sendPost already retried them.
+            ClientResponse clientResponse = restClient.sendPost(url, payloadTemplate.forCursor(cursor), 200, retryBudget);
+
+            long readStartNanos = System.nanoTime();
+            TraceSpan span = SyncTrace.startCurrentSpan(SyncMetrics.Phase.PARSE.getLabel());
+            CountingInputStream body = null;
+            try {
+                body = new CountingInputStream(clientResponse.getEntity(InputStream.class));
+                response = responseReader.read(body, pageResults::add);
+            } catch (IOException | RuntimeException e) {
+                // Network error while reading the response body: we request the same page again.
+                if (!closed && retryPolicy.isRetryable(e) && retryPolicy.canRetry(++failedReads) && retryBudget.tryConsume()) {
+                    logger.warn("Transient error when reading results of " + url + ", requesting the same page again", e);
+                    retryPolicy.sleepBeforeRetry(failedReads);
+                    continue;
+                }
+                if (e instanceof IOException) {
+                    throw new RestRequestException(500, "Error when reading results of " + url + ": " + e.getMessage());
+                }
+                throw (RuntimeException)e;
+            } finally {
+                long bytes = body == null ? 0L : body.getCount();
+                SyncMetrics.addToCurrent(SyncMetrics.Phase.PARSE, System.nanoTime() - readStartNanos);
+                NotionMetrics.get().recordResponseBytes(endpoint, bytes);
+                if (span != null) {
+                    span.tag("endpoint", endpoint).tag("bytes", bytes).tag("results", pageResults.size()).end();
+                }
+            }
+
+            boolean isLast = !response.has_more || response.next_cursor == null;
+            cursor = response.next_cursor;
+
+            return new FetchedPage<>(pageResults, isLast, null);
+        }
+    }
+
+    private void checkNotCancelled() {
+        if (syncMetrics != null && syncMetrics.isCancelled()) {
+            throw new CancellationException("Sync was cancelled, results of " + url + " are no longer retrieved");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (syncMetrics != null && syncMetrics.isCancelled()) {
+            // Pages already fetched are dropped as well.
+            close();
+            checkNotCancelled();
+        }
+
+        while (!currentPage.hasNext()) {
+            if (lastPageReceived || closed) {
+                return false;
+            }
+
+            FetchedPage<T> page;
+            if (fetcher == null) {
+                try {
+                    page = fetchNextPage();
+                } catch (Throwable t) {
+                    page = new FetchedPage<>(null, true, t);
+                }
+            } else {
+                try {
+                    page = fetchedPages.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new RestRequestException(503, "Interrupted while waiting for results of " + url);
+                }
+            }
+
+            if (page.error != null) {
+                lastPageReceived = true;
+                close();
+                if (page.error instanceof RuntimeException) {
+                    throw (RuntimeException)page.error;
+                }
+                throw new RuntimeException("Error when retrieving results of " + url, page.error);
+            }
+
+            lastPageReceived = page.isLast;
+            currentPage = page.results.iterator();
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Stops fetching pages. Safe to call several times, and after all results have been read.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (fetcher != null) {
+            fetcher.cancel(true);
+        }
+        fetchedPages.clear();
+    }
+}
@@ -0,0 +1,77 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a value is being loaded, other callers asking for the same key
+ * wait for that load and get its result (or its error) instead of sending the same request again.
+ *
+ * Nothing is kept once the load completes; caching the result is up to the loader.
+ * Futures returned by {@link #loadAsync(Object, Supplier)} are shared between callers, so they must not be completed or cancelled by them.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the loader in the calling thread, unless a load of the same key is already in progress, in which case its result is awaited.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = inFlight.putIfAbsent(key, flight);
+
+        if (existingFlight != null) {
+            try {
+                return existingFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            V value = loader.get();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the asynchronous loader, unless a load of the same key is already in progress, in which case its future is returned.
+     */
+    public CompletableFuture<V> loadAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = inFlight.putIfAbsent(key, flight);
+
+        if (existingFlight != null) {
+            return existingFlight;
+        }
+
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+
+        return flight;
+    }
+}
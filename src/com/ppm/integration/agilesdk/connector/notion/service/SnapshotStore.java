@@ -0,0 +1,23 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.model.NotionPage;
+
+import java.util.List;
+
+/**
+ * Keeps the last synced rows of Notion databases between syncs.
+ */
+public interface SnapshotStore {
+
+    /**
+     * @return the snapshot stored with this key, or null if there's none.
+     */
+    DatabaseSnapshot load(String key);
+
+    /**
+     * @param changedRows the rows that changed since the previously saved snapshot, or null if the snapshot was built from a full sync.
+     */
+    void save(String key, DatabaseSnapshot snapshot, List<NotionPage> changedRows);
+
+    void remove(String key);
+}
@@ -0,0 +1,45 @@
+package com.ppm.integration.agilesdk.connector.notion.service;
+
+import com.ppm.integration.agilesdk.connector.notion.NotionConstants;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.nio.file.Paths;
+
+/**
+ * Holds the JVM-wide snapshot store used for incremental syncs.
+ *
+ * Snapshots are kept in memory only, unless a directory is set with the {@link NotionConstants#SYSPROP_SNAPSHOT_DIR} system property,
+ * in which case they're also stored on disk and survive PPM server restarts.
+ */
+public class SnapshotStores {
+
+    private final static Logger logger = Logger.getLogger(SnapshotStores.class);
+
+    private static final SnapshotStore DEFAULT_STORE = createDefaultStore();
+
+    private SnapshotStores() {
+    }
+
+    public static SnapshotStore getDefault() {
+        return DEFAULT_STORE;
+    }
+
+    private static SnapshotStore createDefaultStore() {
+        SnapshotStore memoryStore = new InMemorySnapshotStore(
+                Integer.getInteger(NotionConstants.SYSPROP_SNAPSHOT_MAX_DATABASES, NotionConstants.DEFAULT_SNAPSHOT_MAX_DATABASES));
+
+        String snapshotDir = System.getProperty(NotionConstants.SYSPROP_SNAPSHOT_DIR);
+
+        if (StringUtils.isBlank(snapshotDir)) {
+            return memoryStore;
+        }
+
+        try {
+            return new FileSnapshotStore(Paths.get(snapshotDir.trim()), memoryStore);
+        } catch (Exception e) {
+            logger.error("Cannot use directory " + snapshotDir + " to store Notion database snapshots, they will only be kept in memory", e);
+            return memoryStore;
+        }
+    }
+}